@@ -1,8 +1,11 @@
 package com.example.MagdasLarisa_Project.Controllers;
 
+import com.example.MagdasLarisa_Project.Journal.MutationJournal;
 import com.example.MagdasLarisa_Project.Models.ErrorResponse;
 import com.example.MagdasLarisa_Project.Models.User;
+import com.example.MagdasLarisa_Project.Models.UserDeletionJob;
 import com.example.MagdasLarisa_Project.Repository.UserRepository;
+import com.example.MagdasLarisa_Project.Services.UserDeletionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -24,6 +27,12 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDeletionService userDeletionService;
+
+    @Autowired
+    private MutationJournal mutationJournal;
+
     // Endpoint to get all users
     @Operation(summary = "Get all users", description = "Returns a list of all users in the system.")
     @ApiResponses(value = {
@@ -68,6 +77,7 @@ public class AuthController {
         // Create a new user with the valid role
         User newUser = new User(username, email, password, role);
         userRepository.save(newUser);
+        mutationJournal.inOrder("users", newUser.getId(), () -> mutationJournal.recordUser(newUser));
 
         return new ResponseEntity<>(newUser, HttpStatus.CREATED);
     }
@@ -97,16 +107,19 @@ public class AuthController {
     // Secret code for deletion confirmation
     private static final String SECRET_CODE = "DELETE1234"; // This should be securely managed
 
-    @Operation(summary = "Delete a user", description = "Deletes a user by their ID after confirming the secret code.")
+    @Operation(summary = "Delete a user", description = "Deletes a user by their ID after confirming the secret code, together with their books and all favorites referencing the user or their books.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User was successfully deleted."),
+            @ApiResponse(responseCode = "202", description = "The deletion was started as a background job."),
             @ApiResponse(responseCode = "400", description = "Invalid or missing secret code."),
-            @ApiResponse(responseCode = "404", description = "User not found.")
+            @ApiResponse(responseCode = "404", description = "User not found."),
+            @ApiResponse(responseCode = "500", description = "The deletion failed part way through.")
     })
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<?> deleteUser(
             @Parameter(description = "The ID of the user to delete", example = "1", required = true) @PathVariable Long id,
-            @Parameter(description = "The secret code for confirmation", example = "DELETE123", required = true) @RequestParam String secretCode) {
+            @Parameter(description = "The secret code for confirmation", example = "DELETE123", required = true) @RequestParam String secretCode,
+            @Parameter(description = "Run the deletion as a background job and return its progress handle", example = "false", required = false) @RequestParam(defaultValue = "false") boolean async) {
 
         // Verify the secret code
         if (!SECRET_CODE.equals(secretCode)) {
@@ -118,11 +131,36 @@ public class AuthController {
             return new ResponseEntity<>(new ErrorResponse("User not found", "No user found with the provided ID."), HttpStatus.NOT_FOUND);
         }
 
-        userRepository.deleteById(id);
+        if (async) {
+            return new ResponseEntity<>(userDeletionService.deleteUserAsync(id), HttpStatus.ACCEPTED);
+        }
+
+        UserDeletionJob job = userDeletionService.deleteUser(id);
+        if (job.getStatus() == UserDeletionJob.Status.FAILED) {
+            return new ResponseEntity<>(new ErrorResponse("Deletion failed", job.getError()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
 
         return new ResponseEntity<>(new ErrorResponse("User deleted", "The user has been successfully deleted."), HttpStatus.OK);
     }
 
+    // Endpoint to follow a background user deletion
+    @Operation(summary = "Get user deletion progress", description = "Returns the status and the number of rows removed so far by a background user deletion.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The deletion progress was successfully returned."),
+            @ApiResponse(responseCode = "404", description = "No deletion job found with the provided ID.")
+    })
+    @GetMapping("/delete/jobs/{jobId}")
+    public ResponseEntity<?> getDeletionJob(
+            @Parameter(description = "The ID of the deletion job", required = true) @PathVariable String jobId) {
+
+        Optional<UserDeletionJob> job = userDeletionService.getJob(jobId);
+        if (job.isEmpty()) {
+            return new ResponseEntity<>(new ErrorResponse("Job not found", "No deletion job found with the provided ID."), HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(job.get(), HttpStatus.OK);
+    }
+
 
     // Endpoint to update user data
 
@@ -166,7 +204,10 @@ public class AuthController {
             user.setPassword(newPassword);
         }
 
-        userRepository.save(user);
+        mutationJournal.inOrder("users", user.getId(), () -> {
+            userRepository.save(user);
+            mutationJournal.recordUser(user);
+        });
 
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
@@ -1,22 +1,36 @@
 package com.example.MagdasLarisa_Project.Controllers;
 
+import com.example.MagdasLarisa_Project.Journal.MutationJournal;
 import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.BookSlice;
 import com.example.MagdasLarisa_Project.Models.ErrorResponse;
+import com.example.MagdasLarisa_Project.Models.Suggestion;
+import com.example.MagdasLarisa_Project.Models.TrendingBook;
 import com.example.MagdasLarisa_Project.Models.User;
 import com.example.MagdasLarisa_Project.Repository.BookRepository;
+import com.example.MagdasLarisa_Project.Repository.BookSpecifications;
+import com.example.MagdasLarisa_Project.Repository.FavoriteStore;
 import com.example.MagdasLarisa_Project.Repository.UserRepository;
+import com.example.MagdasLarisa_Project.Search.BookSuggestionIndex;
+import com.example.MagdasLarisa_Project.Search.TrendingBooks;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Tag(name = "Books Controller", description = "Manages book-related operations such as viewing, adding, and deleting books.")
 @RestController
@@ -29,6 +43,20 @@ public class BookController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FavoriteStore favoriteStore;
+
+    @Autowired
+    private MutationJournal mutationJournal;
+
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Autowired
+    private TrendingBooks trendingBooks;
+
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,6})([mhd])");
+
     // Endpoint to get all books
     @Operation(summary = "Get all books", description = "Allows a user to view all available books in the system.")
     @ApiResponses(value = {
@@ -46,6 +74,133 @@ public class BookController {
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
+    // Endpoint for filtering books by several optional criteria, one slice at a time
+    @Operation(summary = "Filter books", description = "Returns the books matching all given criteria, ordered by ID. Results come in slices without a total count; pass nextAfter from a slice as after to get the next one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The slice of matching books was successfully returned."),
+            @ApiResponse(responseCode = "400", description = "Invalid year range or slice size."),
+            @ApiResponse(responseCode = "404", description = "Owner not found, or no books match the criteria.")
+    })
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterBooks(
+            @Parameter(description = "The exact genre of the book", example = "Programming", required = false) @RequestParam(required = false) String genre,
+            @Parameter(description = "The exact author of the book", example = "Robert C. Martin", required = false) @RequestParam(required = false) String author,
+            @Parameter(description = "The earliest publication year, inclusive", example = "2000", required = false) @RequestParam(required = false) Integer yearFrom,
+            @Parameter(description = "The latest publication year, inclusive", example = "2020", required = false) @RequestParam(required = false) Integer yearTo,
+            @Parameter(description = "The username of the user who added the books", example = "larisamagdas", required = false) @RequestParam(required = false) String owner,
+            @Parameter(description = "Return only books with an ID greater than this one (nextAfter of the previous slice)", example = "0", required = false) @RequestParam(required = false) Long after,
+            @Parameter(description = "The maximum number of books in the slice (1-100)", example = "20", required = false) @RequestParam(defaultValue = "20") int size) {
+
+        if (size < 1 || size > 100) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid size", "The size must be between 1 and 100."), HttpStatus.BAD_REQUEST);
+        }
+
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid year range", "yearFrom must not be greater than yearTo."), HttpStatus.BAD_REQUEST);
+        }
+
+        List<Specification<Book>> criteria = new ArrayList<>();
+        if (genre != null && !genre.isEmpty()) {
+            criteria.add(BookSpecifications.hasGenre(genre));
+        }
+        if (author != null && !author.isEmpty()) {
+            criteria.add(BookSpecifications.hasAuthor(author));
+        }
+        if (yearFrom != null) {
+            criteria.add(BookSpecifications.publishedFrom(yearFrom));
+        }
+        if (yearTo != null) {
+            criteria.add(BookSpecifications.publishedTo(yearTo));
+        }
+        if (owner != null && !owner.isEmpty()) {
+            Optional<User> user = userRepository.findByUsername(owner);
+            if (user.isEmpty()) {
+                return new ResponseEntity<>(new ErrorResponse("User not found", "No user found with the provided username."), HttpStatus.NOT_FOUND);
+            }
+            criteria.add(BookSpecifications.ownedBy(user.get().getId()));
+        }
+        if (after != null) {
+            criteria.add(BookSpecifications.idAfter(after));
+        }
+
+        // One extra row tells whether another slice follows, so no COUNT(*) query is needed.
+        // The owners are fetched in the same query; Book.user is eager and would otherwise
+        // cost one SELECT per distinct owner in the slice.
+        List<Book> books = bookRepository.findBy(Specification.allOf(criteria),
+                query -> query.project("user").sortBy(Sort.by("id")).limit(size + 1).all());
+
+        if (books.isEmpty()) {
+            return new ResponseEntity<>(new ErrorResponse("No books found", "No books match the provided criteria."), HttpStatus.NOT_FOUND);
+        }
+
+        boolean hasNext = books.size() > size;
+        if (hasNext) {
+            books = books.subList(0, size);
+        }
+        Long nextAfter = hasNext ? books.get(books.size() - 1).getId() : null;
+
+        return new ResponseEntity<>(new BookSlice(books, hasNext, nextAfter), HttpStatus.OK);
+    }
+
+    // Endpoint for typeahead suggestions while searching
+    @Operation(summary = "Suggest titles and authors", description = "Returns the most popular book titles and authors starting with the given prefix. Matching ignores case, accents and repeated spaces.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The suggestions were successfully returned."),
+            @ApiResponse(responseCode = "400", description = "Invalid limit.")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @Parameter(description = "The beginning of a title or author", example = "clean", required = false) @RequestParam(defaultValue = "") String prefix,
+            @Parameter(description = "The maximum number of suggestions (1-50)", example = "10", required = false) @RequestParam(defaultValue = "10") int limit) {
+
+        if (limit < 1 || limit > 50) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid limit", "The limit must be between 1 and 50."), HttpStatus.BAD_REQUEST);
+        }
+
+        List<Suggestion> suggestions = bookSuggestionIndex.suggest(prefix, limit);
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
+    // Endpoint for the books most added to favorites recently
+    @Operation(summary = "Get trending books", description = "Returns the books added to favorites most often within the time window, with recent additions weighted higher than older ones.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The trending books were successfully returned."),
+            @ApiResponse(responseCode = "400", description = "Invalid window or limit.")
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingBooks(
+            @Parameter(description = "The time window, in minutes (m), hours (h) or days (d); a multiple of the bucket duration (5 minutes by default)", example = "1h", required = false) @RequestParam(defaultValue = "1h") String window,
+            @Parameter(description = "The maximum number of books (1-100)", example = "10", required = false) @RequestParam(defaultValue = "10") int limit) {
+
+        Matcher matcher = WINDOW.matcher(window);
+        if (!matcher.matches()) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid window", "The window must look like 30m, 1h or 1d."), HttpStatus.BAD_REQUEST);
+        }
+
+        long amount = Long.parseLong(matcher.group(1));
+        Duration duration = switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+        if (duration.isZero() || duration.compareTo(trendingBooks.getMaxWindow()) > 0) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid window", "The window must be positive and at most " + trendingBooks.getMaxWindow().toMinutes() + " minutes."), HttpStatus.BAD_REQUEST);
+        }
+
+        // Counts are kept per bucket, so finer windows cannot be answered exactly
+        long bucketSeconds = trendingBooks.getBucketDuration().toSeconds();
+        if (duration.toSeconds() % bucketSeconds != 0) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid window", "The window must be a multiple of " + bucketSeconds + " seconds."), HttpStatus.BAD_REQUEST);
+        }
+
+        if (limit < 1 || limit > 100) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid limit", "The limit must be between 1 and 100."), HttpStatus.BAD_REQUEST);
+        }
+
+        List<TrendingBook> trending = trendingBooks.trending(duration, limit);
+        return new ResponseEntity<>(trending, HttpStatus.OK);
+    }
+
     // Endpoint for adding a new book (only for authors)
     @Operation(summary = "Add a new book", description = "Allows an author to add a new book.")
     @ApiResponses(value = {
@@ -67,6 +222,8 @@ public class BookController {
 
         Book newBook = new Book(title, author, genre, publishedYear, user.get()); // Legătura cu utilizatorul
         bookRepository.save(newBook);
+        mutationJournal.inOrder("book", newBook.getId(), () -> mutationJournal.recordBook(newBook));
+        bookSuggestionIndex.markDirty();
 
         return new ResponseEntity<>(newBook, HttpStatus.CREATED);
     }
@@ -97,7 +254,14 @@ public class BookController {
             return new ResponseEntity<>(new ErrorResponse("Unauthorized", "You can only delete books you have added."), HttpStatus.FORBIDDEN);
         }
 
-        bookRepository.deleteById(id);
+        // Favorites may live in other databases, so they are removed explicitly instead of by cascade
+        mutationJournal.inOrder("book", id, () -> {
+            favoriteStore.deleteByBookId(id);
+            mutationJournal.recordFavoritesOfBookDeleted(id);
+            bookRepository.deleteById(id);
+            mutationJournal.recordBookDeleted(id);
+        });
+        bookSuggestionIndex.markDirty();
         return new ResponseEntity<>("Book deleted successfully.", HttpStatus.OK);
     }
 
@@ -137,7 +301,11 @@ public class BookController {
         updatedBook.setGenre(genre);
         updatedBook.setPublishedYear(publishedYear);
 
-        bookRepository.save(updatedBook);
+        mutationJournal.inOrder("book", id, () -> {
+            bookRepository.save(updatedBook);
+            mutationJournal.recordBook(updatedBook);
+        });
+        bookSuggestionIndex.markDirty();
 
         return new ResponseEntity<>(updatedBook, HttpStatus.OK);
     }
@@ -1,24 +1,26 @@
 package com.example.MagdasLarisa_Project.Controllers;
 
+import com.example.MagdasLarisa_Project.Journal.MutationJournal;
 import com.example.MagdasLarisa_Project.Models.Book;
 import com.example.MagdasLarisa_Project.Models.ErrorResponse;
 import com.example.MagdasLarisa_Project.Models.Favorite;
 import com.example.MagdasLarisa_Project.Models.User;
 import com.example.MagdasLarisa_Project.Repository.BookRepository;
-import com.example.MagdasLarisa_Project.Repository.FavoriteRepository;
+import com.example.MagdasLarisa_Project.Repository.FavoriteStore;
 import com.example.MagdasLarisa_Project.Repository.UserRepository;
+import com.example.MagdasLarisa_Project.Search.TrendingBooks;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Tag(name = "Favorite Books Controller", description = "Allows users to manage their favorite books.")
@@ -27,7 +29,7 @@ import java.util.Optional;
 public class FavoriteController {
 
     @Autowired
-    private FavoriteRepository favoriteRepository;
+    private FavoriteStore favoriteStore;
 
     @Autowired
     private UserRepository userRepository;
@@ -35,6 +37,12 @@ public class FavoriteController {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private MutationJournal mutationJournal;
+
+    @Autowired
+    private TrendingBooks trendingBooks;
+
     // Endpoint for adding a book to favorites
     @Operation(summary = "Add a book to favorites", description = "Allows any user to add a book to their favorites list.")
     @ApiResponses(value = {
@@ -56,13 +64,18 @@ public class FavoriteController {
             return new ResponseEntity<>(new ErrorResponse("Book not found", "No book found with the provided ID."), HttpStatus.NOT_FOUND);
         }
 
-        Optional<Favorite> existingFavorite = favoriteRepository.findByUserIdAndBookId(user.get().getId(), bookId);
+        Optional<Favorite> existingFavorite = favoriteStore.findByUserIdAndBookId(user.get().getId(), bookId);
         if (existingFavorite.isPresent()) {
             return new ResponseEntity<>(new ErrorResponse("Already in favorites", "This book is already in your favorites."), HttpStatus.BAD_REQUEST);
         }
 
         Favorite favorite = new Favorite(user.get(), book.get());
-        favoriteRepository.save(favorite);
+        // Favorites are keyed by their user, like the shards that hold them
+        mutationJournal.inOrder("favorite", user.get().getId(), () -> {
+            favoriteStore.save(favorite);
+            mutationJournal.recordFavorite(favorite);
+        });
+        trendingBooks.recordFavoriteAdded(bookId);
 
         return new ResponseEntity<>(favorite, HttpStatus.CREATED);
     }
@@ -74,7 +87,6 @@ public class FavoriteController {
             @ApiResponse(responseCode = "404", description = "Book or user not found.")
     })
     @DeleteMapping("/remove")
-    @Transactional
     public ResponseEntity<?> removeFromFavorites(
             @Parameter(description = "The username of the user", example = "larisamagdas", required = true) @RequestParam String username,
             @Parameter(description = "The ID of the book", example = "1", required = true) @RequestParam Long bookId) {
@@ -89,7 +101,11 @@ public class FavoriteController {
             return new ResponseEntity<>(new ErrorResponse("Book not found", "No book found with the provided ID."), HttpStatus.NOT_FOUND);
         }
 
-        favoriteRepository.deleteByUserIdAndBookId(user.get().getId(), bookId);
+        Long userId = user.get().getId();
+        mutationJournal.inOrder("favorite", userId, () -> {
+            favoriteStore.deleteByUserIdAndBookId(userId, bookId);
+            mutationJournal.recordFavoriteDeleted(userId, bookId);
+        });
 
         return new ResponseEntity<>("Book removed from favorites.", HttpStatus.OK);
     }
@@ -109,11 +125,22 @@ public class FavoriteController {
             return new ResponseEntity<>(new ErrorResponse("User not found", "No user found with the provided username."), HttpStatus.NOT_FOUND);
         }
 
-        List<Favorite> favorites = favoriteRepository.findByUserId(user.get().getId());
+        List<Favorite> favorites = favoriteStore.findByUserId(user.get().getId());
         if (favorites.isEmpty()) {
             return new ResponseEntity<>(new ErrorResponse("No favorites", "This user has no favorite books."), HttpStatus.NOT_FOUND);
         }
 
         return new ResponseEntity<>(favorites, HttpStatus.OK);
     }
+
+    // Endpoint for counting how many users have each book in their favorites
+    @Operation(summary = "Count favorites per book", description = "Returns, for every book that is in at least one favorites list, how many users added it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The favorite counts were successfully returned.")
+    })
+    @GetMapping("/counts")
+    public ResponseEntity<?> getFavoriteCounts() {
+        Map<Long, Long> counts = favoriteStore.countByBookId();
+        return new ResponseEntity<>(counts, HttpStatus.OK);
+    }
 }
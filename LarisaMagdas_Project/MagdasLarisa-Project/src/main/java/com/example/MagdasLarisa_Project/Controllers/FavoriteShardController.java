@@ -0,0 +1,57 @@
+package com.example.MagdasLarisa_Project.Controllers;
+
+import com.example.MagdasLarisa_Project.Models.ErrorResponse;
+import com.example.MagdasLarisa_Project.Repository.ShardedFavoriteStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Favorite Shards Controller", description = "Inspects and rebalances the databases holding the favorites when sharding is enabled.")
+@RestController
+@RequestMapping("/api/favorites/shards")
+@ConditionalOnProperty(name = "bookstore.favorites.sharding.enabled", havingValue = "true")
+public class FavoriteShardController {
+
+    @Autowired
+    private ShardedFavoriteStore shardedFavoriteStore;
+
+    // Endpoint to view how many favorites each shard holds
+    @Operation(summary = "Get shard sizes", description = "Returns the number of favorites stored in each shard, in shard order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The shard sizes were successfully returned.")
+    })
+    @GetMapping
+    public ResponseEntity<?> getShardSizes() {
+        return new ResponseEntity<>(shardedFavoriteStore.getShardSizes(), HttpStatus.OK);
+    }
+
+    // Endpoint to change the number of shards
+    @Operation(summary = "Rebalance the shards", description = "Redistributes all favorites over the requested number of shards. Reads and writes are served during the move.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The favorites were successfully redistributed."),
+            @ApiResponse(responseCode = "400", description = "Invalid number of shards."),
+            @ApiResponse(responseCode = "409", description = "Another rebalance is already running.")
+    })
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance(
+            @Parameter(description = "The new number of shards", example = "8", required = true) @RequestParam int shards) {
+
+        if (shards < 1) {
+            return new ResponseEntity<>(new ErrorResponse("Invalid shard count", "The number of shards must be at least 1."), HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            shardedFavoriteStore.rebalance(shards);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(new ErrorResponse("Rebalance in progress", e.getMessage()), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(shardedFavoriteStore.getShardSizes(), HttpStatus.OK);
+    }
+}
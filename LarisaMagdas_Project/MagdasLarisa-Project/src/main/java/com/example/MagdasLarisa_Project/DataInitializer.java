@@ -1,5 +1,6 @@
 package com.example.MagdasLarisa_Project;
 
+import com.example.MagdasLarisa_Project.Journal.MutationJournal;
 import com.example.MagdasLarisa_Project.Models.Book;
 import com.example.MagdasLarisa_Project.Models.User;
 import com.example.MagdasLarisa_Project.Repository.BookRepository;
@@ -12,24 +13,35 @@ public class DataInitializer implements CommandLineRunner {
 
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final MutationJournal mutationJournal;
 
-    public DataInitializer(BookRepository bookRepository, UserRepository userRepository) {
+    public DataInitializer(BookRepository bookRepository, UserRepository userRepository, MutationJournal mutationJournal) {
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.mutationJournal = mutationJournal;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // A restored database already holds the sample data from the first start
+        if (mutationJournal.isRestored()) {
+            return;
+        }
+
         User user1 = new User("larisa1", "larisa1@yahoo.com", "123", "ROLE_USER");
         User user2 = new User("larisa2", "larisa2@gmail.com", "123", "ROLE_AUTHOR");
 
         userRepository.save(user1);
         userRepository.save(user2);
+        mutationJournal.recordUser(user1);
+        mutationJournal.recordUser(user2);
 
         Book book1 = new Book("Title1", "Author1", "Genre1", 2008, user2);
         Book book2 = new Book("Title2", "Author2", "Genre2", 2222, user2);
 
         bookRepository.save(book1);
         bookRepository.save(book2);
+        mutationJournal.recordBook(book1);
+        mutationJournal.recordBook(book2);
     }
 }
@@ -0,0 +1,169 @@
+package com.example.MagdasLarisa_Project.Journal;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// One mutation as stored in the journal. The arguments are exactly the parameters of the
+// statement used to replay it, so replay never needs to know about the entity classes.
+// Upserts carry the full row and deletes are keyed, which keeps replay idempotent.
+public class JournalRecord {
+
+    public enum Type {
+        USER("MERGE INTO users (id, username, email, password, role) KEY (id) VALUES (?, ?, ?, ?, ?)"),
+        USER_DELETE("DELETE FROM users WHERE id = ?"),
+        BOOK("MERGE INTO book (id, title, author, genre, published_year, user_id) KEY (id) VALUES (?, ?, ?, ?, ?, ?)"),
+        BOOK_DELETE("DELETE FROM book WHERE id = ?"),
+        FAVORITE("MERGE INTO favorite (id, user_id, book_id) KEY (id) VALUES (?, ?, ?)"),
+        FAVORITE_DELETE("DELETE FROM favorite WHERE user_id = ? AND book_id = ?"),
+        // One committed chunk of the user's own favorites in the user deletion cascade
+        FAVORITE_DELETE_BY_USER("DELETE FROM favorite WHERE user_id = ? AND id <= ?"),
+        // These two are no longer written, the cascade now deletes books by id; kept so older segments still replay
+        FAVORITE_DELETE_BY_BOOK_OWNER("DELETE FROM favorite WHERE book_id IN (SELECT id FROM book WHERE user_id = ?) AND id <= ?"),
+        BOOK_DELETE_BY_USER("DELETE FROM book WHERE user_id = ? AND id <= ?"),
+        // Favorites of a book, removed right before the book itself
+        FAVORITE_DELETE_BY_BOOK("DELETE FROM favorite WHERE book_id = ?");
+
+        // Statement replayed in batches
+        private final String sql;
+
+        Type(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+
+    // A framed record is its body length, the CRC32 of the body, then the body
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte STRING = 3;
+
+    private final Type type;
+    private final Object[] args;
+
+    public JournalRecord(Type type, Object... args) {
+        this.type = type;
+        this.args = args;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    // Encoded layout: type ordinal, argument count, then a tag byte and value per argument
+    public byte[] encode() {
+        byte[][] strings = new byte[args.length][];
+        int size = 2;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg instanceof Long) {
+                size += 1 + Long.BYTES;
+            } else if (arg instanceof Integer) {
+                size += 1 + Integer.BYTES;
+            } else if (arg instanceof String text) {
+                strings[i] = text.getBytes(StandardCharsets.UTF_8);
+                size += 1 + Integer.BYTES + strings[i].length;
+            } else if (arg == null) {
+                size += 1;
+            } else {
+                throw new IllegalArgumentException("Unsupported journal value " + arg.getClass().getName());
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) type.ordinal());
+        buffer.put((byte) args.length);
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg instanceof Long value) {
+                buffer.put(LONG).putLong(value);
+            } else if (arg instanceof Integer value) {
+                buffer.put(INT).putInt(value);
+            } else if (arg instanceof String) {
+                buffer.put(STRING).putInt(strings[i].length).put(strings[i]);
+            } else {
+                buffer.put(NULL);
+            }
+        }
+        return buffer.array();
+    }
+
+    // The record as written to a segment, with its length and checksum in front
+    public byte[] frame() {
+        byte[] body = encode();
+        return ByteBuffer.allocate(HEADER_BYTES + body.length)
+                .putInt(body.length)
+                .putInt(checksum(ByteBuffer.wrap(body)))
+                .put(body)
+                .array();
+    }
+
+    // Reads the framed record at the position of data and moves past it. Returns null at the zero
+    // length that follows the last record of a segment. A record that was torn by a crash or
+    // corrupted on disk throws IllegalArgumentException.
+    public static JournalRecord read(ByteBuffer data) {
+        if (data.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int start = data.position();
+        int length = data.getInt();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length > data.remaining() - Integer.BYTES) {
+            throw new IllegalArgumentException("Record at offset " + start + " has length " + length
+                    + " but only " + data.remaining() + " bytes follow");
+        }
+        int expected = data.getInt();
+        ByteBuffer body = data.slice(data.position(), length);
+        data.position(data.position() + length);
+        if (checksum(body.duplicate()) != expected) {
+            throw new IllegalArgumentException("Record at offset " + start + " does not match its checksum");
+        }
+        try {
+            JournalRecord record = decode(body);
+            if (body.hasRemaining()) {
+                throw new IllegalArgumentException("Record at offset " + start + " has trailing bytes");
+            }
+            return record;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Record at offset " + start + " cannot be decoded", e);
+        }
+    }
+
+    private static int checksum(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    public static JournalRecord decode(ByteBuffer buffer) {
+        Type type = Type.values()[buffer.get()];
+        Object[] args = new Object[buffer.get()];
+        for (int i = 0; i < args.length; i++) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case LONG -> args[i] = buffer.getLong();
+                case INT -> args[i] = buffer.getInt();
+                case STRING -> {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    args[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                default -> args[i] = null;
+            }
+        }
+        return new JournalRecord(type, args);
+    }
+}
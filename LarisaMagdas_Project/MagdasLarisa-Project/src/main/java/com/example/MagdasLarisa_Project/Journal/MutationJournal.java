@@ -0,0 +1,435 @@
+package com.example.MagdasLarisa_Project.Journal;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import com.example.MagdasLarisa_Project.Models.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Append-only journal of every mutation made through the API, so the in-memory database
+// can be rebuilt after a restart.
+//
+// Records are appended to memory-mapped segment files. Appending only copies bytes into the
+// mapping; a background flusher forces the dirty mapping to disk every flush interval, so all
+// writes of that interval share one fsync (group commit). Periodically the journal rolls to a
+// new segment and takes a compressed H2 SCRIPT snapshot; segments older than the snapshot are
+// then deleted. On startup the latest snapshot is loaded and the remaining segments, decoded
+// in parallel, are replayed in order. This happens once every singleton exists but before the
+// web server starts, so no request ever sees a half-restored database. Every record carries a
+// CRC32; reading a segment stops at the first record that is torn or corrupted.
+//
+// Callers run each mutation and its append through inOrder, keyed by the row they change, so
+// records of the same row are journaled in the order their transactions committed.
+//
+// Favorites are replayed into the main database, so the journal cannot be combined with the
+// sharded favorite store.
+@Component
+public class MutationJournal implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MutationJournal.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.sql\\.gz");
+    private static final String[] TABLES = {"users", "book", "favorite"};
+    private static final int ORDER_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalMs;
+    private final long snapshotIntervalMs;
+
+    private final Object lock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segment;
+    private long firstOwnSegment;
+    private volatile boolean dirty;
+    private volatile boolean restored;
+    private ScheduledExecutorService scheduler;
+    private final Object[] orderStripes = new Object[ORDER_STRIPES];
+
+    public MutationJournal(JdbcTemplate jdbcTemplate,
+                           @Value("${bookstore.journal.enabled:false}") boolean enabled,
+                           @Value("${bookstore.journal.directory:./data/journal}") String directory,
+                           @Value("${bookstore.journal.segment-size-mb:64}") int segmentSizeMb,
+                           @Value("${bookstore.journal.flush-interval-ms:5}") long flushIntervalMs,
+                           @Value("${bookstore.journal.snapshot-interval-ms:600000}") long snapshotIntervalMs,
+                           @Value("${bookstore.favorites.sharding.enabled:false}") boolean favoritesSharded) {
+        if (enabled && favoritesSharded) {
+            throw new IllegalArgumentException("bookstore.journal.enabled cannot be combined with bookstore.favorites.sharding.enabled; "
+                    + "favorites would be replayed into the main database instead of the shards and lost on restart");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.flushIntervalMs = flushIntervalMs;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        for (int i = 0; i < ORDER_STRIPES; i++) {
+            orderStripes[i] = new Object();
+        }
+    }
+
+    // Opens a fresh segment after the existing ones, so writes arriving before restore()
+    // has finished never mix with the segments being replayed
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long last = 0;
+        for (long number : numbers(SEGMENT)) {
+            last = Math.max(last, number);
+        }
+        synchronized (lock) {
+            firstOwnSegment = last + 1;
+            openSegment(firstOwnSegment);
+        }
+
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "mutation-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            restored = restore();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not restore the database from the mutation journal", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // True when the database was rebuilt from the journal on this start
+    public boolean isRestored() {
+        return restored;
+    }
+
+    // Runs a mutation, including its commit and its record* call, while holding the stripe of
+    // table/id. A new row is appended under its id once the insert has returned.
+    public void inOrder(String table, Long id, Runnable mutation) {
+        inOrder(table, List.of(id), mutation);
+    }
+
+    // Same for a mutation of several rows, such as one chunk of a cascade. The stripes are taken
+    // in index order, so two of these never wait on each other in a cycle.
+    public void inOrder(String table, Collection<Long> ids, Runnable mutation) {
+        if (!enabled) {
+            mutation.run();
+            return;
+        }
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (Long id : ids) {
+            stripes.add(Math.floorMod(31 * table.hashCode() + Long.hashCode(id), ORDER_STRIPES));
+        }
+        runHolding(stripes.iterator(), mutation);
+    }
+
+    private void runHolding(Iterator<Integer> stripes, Runnable mutation) {
+        if (!stripes.hasNext()) {
+            mutation.run();
+            return;
+        }
+        synchronized (orderStripes[stripes.next()]) {
+            runHolding(stripes, mutation);
+        }
+    }
+
+    public void recordUser(User user) {
+        append(new JournalRecord(JournalRecord.Type.USER,
+                user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), user.getRole()));
+    }
+
+    public void recordFavoritesOfUserDeleted(Long userId, Long maxId) {
+        append(new JournalRecord(JournalRecord.Type.FAVORITE_DELETE_BY_USER, userId, maxId));
+    }
+
+    public void recordUserDeleted(Long userId) {
+        append(new JournalRecord(JournalRecord.Type.USER_DELETE, userId));
+    }
+
+    public void recordBook(Book book) {
+        Long userId = book.getUser() == null ? null : book.getUser().getId();
+        append(new JournalRecord(JournalRecord.Type.BOOK,
+                book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.getPublishedYear(), userId));
+    }
+
+    public void recordBookDeleted(Long bookId) {
+        append(new JournalRecord(JournalRecord.Type.BOOK_DELETE, bookId));
+    }
+
+    public void recordFavorite(Favorite favorite) {
+        append(new JournalRecord(JournalRecord.Type.FAVORITE,
+                favorite.getId(), favorite.getUser().getId(), favorite.getBook().getId()));
+    }
+
+    public void recordFavoriteDeleted(Long userId, Long bookId) {
+        append(new JournalRecord(JournalRecord.Type.FAVORITE_DELETE, userId, bookId));
+    }
+
+    public void recordFavoritesOfBookDeleted(Long bookId) {
+        append(new JournalRecord(JournalRecord.Type.FAVORITE_DELETE_BY_BOOK, bookId));
+    }
+
+    private void append(JournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        byte[] framed = record.frame();
+        synchronized (lock) {
+            try {
+                // Room is kept for the zero length that ends the segment
+                if (buffer.remaining() < framed.length + Integer.BYTES) {
+                    openSegment(segment + 1);
+                }
+                buffer.put(framed);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to the mutation journal", e);
+            }
+        }
+        dirty = true;
+    }
+
+    // Runs on the scheduler, where an escaping exception would cancel all later flushes
+    private void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            MappedByteBuffer current;
+            synchronized (lock) {
+                current = buffer;
+            }
+            current.force();
+        } catch (RuntimeException e) {
+            dirty = true;
+            log.warn("Mutation journal flush failed, retrying on the next interval", e);
+        }
+    }
+
+    // Must be called with the lock held
+    private void openSegment(long number) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            channel.close();
+        }
+        segment = number;
+        channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    // Rolls to a new segment and snapshots the database. Every record in the new segment is
+    // replayed over the snapshot; because replay is idempotent it does not matter whether the
+    // snapshot already contains the effect of mutations made while it was being written.
+    public void snapshot() throws IOException {
+        long firstAfterSnapshot;
+        synchronized (lock) {
+            openSegment(segment + 1);
+            firstAfterSnapshot = segment;
+        }
+
+        Path target = directory.resolve(String.format("snapshot-%010d.sql.gz", firstAfterSnapshot));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        jdbcTemplate.execute("SCRIPT DROP TO '" + quote(temp) + "' COMPRESSION DEFLATE TABLE " + String.join(", ", TABLES));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long number : numbers(SEGMENT)) {
+            if (number < firstAfterSnapshot) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+        for (long number : numbers(SNAPSHOT)) {
+            if (number < firstAfterSnapshot) {
+                Files.deleteIfExists(directory.resolve(String.format("snapshot-%010d.sql.gz", number)));
+            }
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Mutation journal snapshot failed", e);
+        }
+    }
+
+    // Rebuilds the database from the latest snapshot and the segments written before this start,
+    // then starts the periodic snapshots. Returns true when anything was restored.
+    private boolean restore() throws IOException {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return replay();
+        } finally {
+            // Snapshots delete older segments, so they may only start once those were replayed
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean replay() throws IOException {
+        long start = System.nanoTime();
+
+        long snapshot = 0;
+        for (long number : numbers(SNAPSHOT)) {
+            snapshot = Math.max(snapshot, number);
+        }
+        List<Long> segments = new ArrayList<>();
+        for (long number : numbers(SEGMENT)) {
+            if (number >= snapshot && number < firstOwnSegment) {
+                segments.add(number);
+            }
+        }
+        segments.sort(null);
+        if (snapshot == 0 && segments.isEmpty()) {
+            return false;
+        }
+
+        if (snapshot > 0) {
+            Path path = directory.resolve(String.format("snapshot-%010d.sql.gz", snapshot));
+            jdbcTemplate.execute("RUNSCRIPT FROM '" + quote(path) + "' COMPRESSION DEFLATE");
+        }
+
+        // Decoding is independent per segment; applying has to keep the original order
+        List<List<JournalRecord>> decoded = segments.parallelStream()
+                .map(this::readSegment)
+                .collect(Collectors.toList());
+
+        long replayed = 0;
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            for (List<JournalRecord> records : decoded) {
+                apply(records);
+                replayed += records.size();
+            }
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+
+        for (String table : TABLES) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (max + 1));
+        }
+
+        log.info("Restored database from journal ({} records replayed) in {} ms",
+                replayed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    // Consecutive records of the same type are sent as one JDBC batch
+    private void apply(List<JournalRecord> records) {
+        int from = 0;
+        while (from < records.size()) {
+            JournalRecord.Type type = records.get(from).getType();
+            int to = from;
+            List<Object[]> batch = new ArrayList<>();
+            while (to < records.size() && records.get(to).getType() == type) {
+                batch.add(records.get(to).getArgs());
+                to++;
+            }
+
+            jdbcTemplate.batchUpdate(type.getSql(), batch);
+            from = to;
+        }
+    }
+
+    private List<JournalRecord> readSegment(long number) {
+        List<JournalRecord> records = new ArrayList<>();
+        try (FileChannel segmentChannel = FileChannel.open(segmentPath(number), StandardOpenOption.READ)) {
+            ByteBuffer data = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+            // The mapping is zero-filled past the last record, so a zero length marks the end.
+            // Nothing after a bad record can be trusted; later segments were written by a later
+            // start and are still read.
+            try {
+                JournalRecord record;
+                while ((record = JournalRecord.read(data)) != null) {
+                    records.add(record);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Journal segment {} is damaged after {} records, replaying only those: {}",
+                        number, records.size(), e.getMessage());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal segment " + number, e);
+        }
+        return records;
+    }
+
+    private List<Long> numbers(Pattern pattern) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return numbers;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("journal-%010d.log", number));
+    }
+
+    private static String quote(Path path) {
+        return path.toString().replace("'", "''");
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        synchronized (lock) {
+            buffer.force();
+            channel.close();
+        }
+    }
+}
@@ -5,10 +5,22 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
 
+// Indexes for GET /api/books/filter; see BookSpecifications for which combinations they serve
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_genre_id", columnList = "genre, id"),
+        @Index(name = "idx_book_author_id", columnList = "author, id"),
+        @Index(name = "idx_book_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_book_genre_author_id", columnList = "genre, author, id"),
+        @Index(name = "idx_book_user_genre_id", columnList = "user_id, genre, id"),
+        @Index(name = "idx_book_user_author_id", columnList = "user_id, author, id"),
+        @Index(name = "idx_book_published_year_id", columnList = "published_year, id")
+})
 public class Book {
 
     @Id
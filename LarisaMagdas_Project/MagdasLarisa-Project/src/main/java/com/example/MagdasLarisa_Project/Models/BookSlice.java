@@ -0,0 +1,29 @@
+package com.example.MagdasLarisa_Project.Models;
+
+import java.util.List;
+
+// One slice of a filtered book listing. Pass nextAfter as the after parameter to get the next slice.
+public class BookSlice {
+
+    private final List<Book> books;
+    private final boolean hasNext;
+    private final Long nextAfter;
+
+    public BookSlice(List<Book> books, boolean hasNext, Long nextAfter) {
+        this.books = books;
+        this.hasNext = hasNext;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+}
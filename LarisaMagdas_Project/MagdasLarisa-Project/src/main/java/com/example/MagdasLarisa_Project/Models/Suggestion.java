@@ -0,0 +1,31 @@
+package com.example.MagdasLarisa_Project.Models;
+
+public class Suggestion {
+
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+
+    private final String text;
+    private final Type type;
+    private final long popularity;
+
+    public Suggestion(String text, Type type, long popularity) {
+        this.text = text;
+        this.type = type;
+        this.popularity = popularity;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getPopularity() {
+        return popularity;
+    }
+}
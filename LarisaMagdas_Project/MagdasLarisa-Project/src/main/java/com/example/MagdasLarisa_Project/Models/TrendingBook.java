@@ -0,0 +1,26 @@
+package com.example.MagdasLarisa_Project.Models;
+
+public class TrendingBook {
+
+    private final Book book;
+    private final long favoritesAdded;
+    private final double score;
+
+    public TrendingBook(Book book, long favoritesAdded, double score) {
+        this.book = book;
+        this.favoritesAdded = favoritesAdded;
+        this.score = score;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public long getFavoritesAdded() {
+        return favoritesAdded;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
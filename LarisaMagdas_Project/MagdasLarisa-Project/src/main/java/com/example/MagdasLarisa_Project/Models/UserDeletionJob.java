@@ -0,0 +1,73 @@
+package com.example.MagdasLarisa_Project.Models;
+
+// Progress of a cascading user deletion, updated chunk by chunk while it runs
+public class UserDeletionJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String jobId;
+    private final Long userId;
+    private volatile Status status = Status.RUNNING;
+    private volatile long favoritesDeleted;
+    private volatile long booksDeleted;
+    private volatile String error;
+    private volatile long finishedAt;
+
+    public UserDeletionJob(String jobId, Long userId) {
+        this.jobId = jobId;
+        this.userId = userId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getFavoritesDeleted() {
+        return favoritesDeleted;
+    }
+
+    public void addFavoritesDeleted(long count) {
+        this.favoritesDeleted += count;
+    }
+
+    public long getBooksDeleted() {
+        return booksDeleted;
+    }
+
+    public void addBooksDeleted(long count) {
+        this.booksDeleted += count;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // Time the job completed or failed, in epoch milliseconds; 0 while it is running
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -2,6 +2,25 @@ package com.example.MagdasLarisa_Project.Repository;
 
 import com.example.MagdasLarisa_Project.Models.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
-}
\ No newline at end of file
+import java.util.List;
+
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+
+    // Only the columns the suggestion index needs, without loading the owning users
+    @Query("SELECT b.id, b.title, b.author FROM Book b")
+    List<Object[]> findTitlesAndAuthors();
+
+    // Keyset walk over a user's books for the user cascade: the next limit ids after the cursor,
+    // read in order off idx_book_user_id
+    @Query(value = "SELECT b.id FROM book b USE INDEX (idx_book_user_id) WHERE b.user_id = :userId AND b.id > :after ORDER BY b.user_id, b.id FETCH FIRST :limit ROWS ONLY", nativeQuery = true)
+    List<Long> findIdsByUserIdAfter(@Param("userId") Long userId, @Param("after") Long after, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM book WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,46 @@
+package com.example.MagdasLarisa_Project.Repository;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+// Criteria for GET /api/books/filter, which returns matches in id order.
+//
+// Book has a composite index ending in id for every single equality criterion (genre, author,
+// owner) and for every pair of them. For those filters the rows come out of one index range
+// scan already in id order, starting at the id cursor, and the scan stops after one slice.
+// Not covered:
+// - all three equality criteria together: the best pair index is scanned and the third
+//   criterion is checked per row;
+// - year ranges: a range on published_year cannot also be read in id order, so the years are
+//   checked per row on whichever index serves the other criteria (the primary key when there
+//   are none). This is cheap while matching years are common and gets slower the rarer they
+//   are. A single year (yearFrom = yearTo) uses the (published_year, id) index.
+public final class BookSpecifications {
+
+    private BookSpecifications() {}
+
+    public static Specification<Book> hasGenre(String genre) {
+        return (root, query, cb) -> cb.equal(root.get("genre"), genre);
+    }
+
+    public static Specification<Book> hasAuthor(String author) {
+        return (root, query, cb) -> cb.equal(root.get("author"), author);
+    }
+
+    public static Specification<Book> publishedFrom(int year) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publishedYear"), year);
+    }
+
+    public static Specification<Book> publishedTo(int year) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("publishedYear"), year);
+    }
+
+    // Compares the foreign key column directly instead of joining users
+    public static Specification<Book> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Book> idAfter(Long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+}
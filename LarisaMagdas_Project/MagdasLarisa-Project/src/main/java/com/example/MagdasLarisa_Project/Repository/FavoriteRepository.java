@@ -2,6 +2,9 @@ package com.example.MagdasLarisa_Project.Repository;
 
 import com.example.MagdasLarisa_Project.Models.Favorite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +13,25 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
     Optional<Favorite> findByUserIdAndBookId(Long userId, Long bookId);
     List<Favorite> findByUserId(Long userId);
     void deleteByUserIdAndBookId(Long userId, Long bookId);
+
+    @Query("SELECT f.book.id, COUNT(f) FROM Favorite f GROUP BY f.book.id")
+    List<Object[]> countGroupByBookId();
+
+    @Modifying
+    @Query(value = "DELETE FROM favorite WHERE book_id = :bookId", nativeQuery = true)
+    int deleteByBookId(@Param("bookId") Long bookId);
+
+    // Set-based deletes used by the user cascade, one chunk of ids per call. The hint and the
+    // user_id, id ordering make H2 read the chunk straight off idx_favorite_user_id and stop
+    // after limit rows; it would otherwise pick the user_id foreign key index and sort them all.
+    @Query(value = "SELECT MAX(id) FROM (SELECT f.id FROM favorite f USE INDEX (idx_favorite_user_id) WHERE f.user_id = :userId ORDER BY f.user_id, f.id FETCH FIRST :limit ROWS ONLY) chunk", nativeQuery = true)
+    Long findChunkEndByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM favorite WHERE user_id = :userId AND id <= :maxId", nativeQuery = true)
+    int deleteByUserIdUpTo(@Param("userId") Long userId, @Param("maxId") Long maxId);
+
+    @Modifying
+    @Query(value = "DELETE FROM favorite WHERE book_id IN (:bookIds)", nativeQuery = true)
+    int deleteByBookIds(@Param("bookIds") List<Long> bookIds);
 }
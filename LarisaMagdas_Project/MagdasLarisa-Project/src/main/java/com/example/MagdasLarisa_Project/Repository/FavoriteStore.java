@@ -0,0 +1,32 @@
+package com.example.MagdasLarisa_Project.Repository;
+
+import com.example.MagdasLarisa_Project.Models.Favorite;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Storage for favorites. Backed either by the main database (JpaFavoriteStore)
+// or by several databases partitioned by user id (ShardedFavoriteStore),
+// selected with bookstore.favorites.sharding.enabled.
+public interface FavoriteStore {
+    Optional<Favorite> findByUserIdAndBookId(Long userId, Long bookId);
+    List<Favorite> findByUserId(Long userId);
+    Favorite save(Favorite favorite);
+    void deleteByUserIdAndBookId(Long userId, Long bookId);
+
+    // Removes the favorites of every user pointing at the book, before the book itself is deleted
+    int deleteByBookId(Long bookId);
+
+    // Number of favorites per book id, over all users
+    Map<Long, Long> countByBookId();
+
+    // Bounded deletes used by the user cascade. A chunk is every matching favorite with an id up to
+    // the bound returned by findChunkEndByUserId, so the same chunk can be journaled and replayed
+    // exactly. The bound is null once the user has no favorites left.
+    Long findChunkEndByUserId(Long userId, int limit);
+    int deleteByUserIdUpTo(Long userId, Long maxId);
+
+    // Removes the favorites of every user pointing at any of the books
+    int deleteByBookIds(List<Long> bookIds);
+}
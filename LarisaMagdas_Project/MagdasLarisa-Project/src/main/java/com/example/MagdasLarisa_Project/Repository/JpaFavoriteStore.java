@@ -0,0 +1,75 @@
+package com.example.MagdasLarisa_Project.Repository;
+
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Default store: favorites live in the main database next to users and books
+@Component
+@ConditionalOnProperty(name = "bookstore.favorites.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaFavoriteStore implements FavoriteStore {
+
+    private final FavoriteRepository favoriteRepository;
+
+    public JpaFavoriteStore(FavoriteRepository favoriteRepository) {
+        this.favoriteRepository = favoriteRepository;
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndBookId(Long userId, Long bookId) {
+        return favoriteRepository.findByUserIdAndBookId(userId, bookId);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(Long userId) {
+        return favoriteRepository.findByUserId(userId);
+    }
+
+    @Override
+    public Favorite save(Favorite favorite) {
+        return favoriteRepository.save(favorite);
+    }
+
+    @Override
+    @Transactional
+    public void deleteByUserIdAndBookId(Long userId, Long bookId) {
+        favoriteRepository.deleteByUserIdAndBookId(userId, bookId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteByBookId(Long bookId) {
+        return favoriteRepository.deleteByBookId(bookId);
+    }
+
+    @Override
+    public Map<Long, Long> countByBookId() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : favoriteRepository.countGroupByBookId()) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public Long findChunkEndByUserId(Long userId, int limit) {
+        return favoriteRepository.findChunkEndByUserId(userId, limit);
+    }
+
+    @Override
+    public int deleteByUserIdUpTo(Long userId, Long maxId) {
+        return favoriteRepository.deleteByUserIdUpTo(userId, maxId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteByBookIds(List<Long> bookIds) {
+        return favoriteRepository.deleteByBookIds(bookIds);
+    }
+}
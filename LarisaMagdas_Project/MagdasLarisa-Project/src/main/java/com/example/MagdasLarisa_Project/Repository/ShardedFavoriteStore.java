@@ -0,0 +1,487 @@
+package com.example.MagdasLarisa_Project.Repository;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import com.example.MagdasLarisa_Project.Models.User;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Favorites partitioned by a hash of the user id over several H2 databases.
+// User-centric calls go to a single shard; book-centric calls fan out to every shard in parallel.
+//
+// A rebalance copies the rows into a new generation of shards while the store stays online:
+// writes go to the current shards and are mirrored into the new ones, and deleted ids are
+// remembered so a row copied just before its delete is removed again. Only installing the
+// migration and switching over take the write lock. The generation is not persisted, so the
+// shards must be in-memory databases.
+@Component
+@ConditionalOnProperty(name = "bookstore.favorites.sharding.enabled", havingValue = "true")
+public class ShardedFavoriteStore implements FavoriteStore {
+
+    private static final int COPY_BATCH_SIZE = 1000;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS favorite (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, book_id BIGINT NOT NULL, "
+                    + "CONSTRAINT uk_favorite_user_book UNIQUE (user_id, book_id))",
+            "CREATE INDEX IF NOT EXISTS idx_favorite_book ON favorite (book_id)",
+            "CREATE INDEX IF NOT EXISTS idx_favorite_user_id ON favorite (user_id, id)"
+    };
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedFavoriteStore.class);
+
+    private static final String INSERT = "INSERT INTO favorite (id, user_id, book_id) VALUES (?, ?, ?)";
+    private static final String COPY = "MERGE INTO favorite (id, user_id, book_id) KEY (id) VALUES (?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final String urlTemplate;
+    private final String username;
+    private final String password;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final ExecutorService fanOut;
+
+    // Reads and writes share the read lock; a rebalance takes the write lock only to install
+    // the migration and to switch shard sets, so nobody still uses the old set once it is dropped
+    private final ReentrantReadWriteLock rebalanceLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebalancing = new AtomicBoolean();
+    private volatile ShardSet shards;
+    // Non-null while a rebalance is copying rows into the next shard set
+    private volatile Migration migration;
+
+    public ShardedFavoriteStore(UserRepository userRepository,
+                                BookRepository bookRepository,
+                                @Value("${bookstore.favorites.sharding.shards:4}") int shardCount,
+                                @Value("${bookstore.favorites.sharding.url-template:jdbc:h2:mem:favorites_g%d_s%d;DB_CLOSE_DELAY=-1}") String urlTemplate,
+                                @Value("${bookstore.favorites.sharding.username:sa}") String username,
+                                @Value("${bookstore.favorites.sharding.password:}") String password) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("bookstore.favorites.sharding.shards must be at least 1");
+        }
+        if (!urlTemplate.startsWith("jdbc:h2:mem:")) {
+            throw new IllegalArgumentException("bookstore.favorites.sharding.url-template must be an in-memory H2 url; "
+                    + "file shards would be reopened at generation 0 after a restart that followed a rebalance");
+        }
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.urlTemplate = urlTemplate;
+        this.username = username;
+        this.password = password;
+        this.fanOut = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "favorite-shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shards = openShards(0, shardCount);
+
+        long maxId = 0;
+        for (Long shardMax : fanOut(shards.templates, shard -> shard.queryForObject("SELECT COALESCE(MAX(id), 0) FROM favorite", Long.class))) {
+            maxId = Math.max(maxId, shardMax);
+        }
+        ids.set(maxId);
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndBookId(Long userId, Long bookId) {
+        List<Long> found = withReadLock(() -> shards.shardFor(userId).queryForList(
+                "SELECT id FROM favorite WHERE user_id = ? AND book_id = ?", Long.class, userId, bookId));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<User> user = userRepository.findById(userId);
+        Optional<Book> book = bookRepository.findById(bookId);
+        if (user.isEmpty() || book.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Favorite favorite = new Favorite(user.get(), book.get());
+        favorite.setId(found.get(0));
+        return Optional.of(favorite);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(Long userId) {
+        List<long[]> rows = withReadLock(() -> shards.shardFor(userId).query(
+                "SELECT id, book_id FROM favorite WHERE user_id = ? ORDER BY id",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, userId));
+        List<Favorite> favorites = new ArrayList<>();
+        if (rows.isEmpty()) {
+            return favorites;
+        }
+
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            return favorites;
+        }
+
+        List<Long> bookIds = new ArrayList<>();
+        for (long[] row : rows) {
+            bookIds.add(row[1]);
+        }
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            books.put(book.getId(), book);
+        }
+
+        for (long[] row : rows) {
+            Book book = books.get(row[1]);
+            if (book != null) {
+                Favorite favorite = new Favorite(user.get(), book);
+                favorite.setId(row[0]);
+                favorites.add(favorite);
+            }
+        }
+        return favorites;
+    }
+
+    @Override
+    public Favorite save(Favorite favorite) {
+        Long userId = favorite.getUser().getId();
+        Book book = favorite.getBook();
+        return withReadLock(() -> {
+            long id = ids.incrementAndGet();
+            Object[] row = {id, userId, book.getId()};
+            shards.shardFor(userId).update(INSERT, row);
+            Migration pending = migration;
+            if (pending != null) {
+                JdbcTemplate next = pending.next.shardFor(userId);
+                mirror(next, row);
+                // A delete that matched the row before it was mirrored already tombstoned it and
+                // may have deleted it from the next shards before the mirror reached them
+                if (pending.tombstones.contains(id)) {
+                    next.update("DELETE FROM favorite WHERE id = ?", id);
+                }
+            }
+            favorite.setId(id);
+            return favorite;
+        });
+    }
+
+    @Override
+    public void deleteByUserIdAndBookId(Long userId, Long bookId) {
+        deleteWhere(userId, "user_id = ? AND book_id = ?", userId, bookId);
+    }
+
+    @Override
+    public int deleteByBookId(Long bookId) {
+        return deleteWhere(null, "book_id = ?", bookId);
+    }
+
+    @Override
+    public Map<Long, Long> countByBookId() {
+        Map<Long, Long> counts = new HashMap<>();
+        List<Map<Long, Long>> perShard = withReadLock(() -> fanOut(shards.templates, shard -> {
+            Map<Long, Long> local = new HashMap<>();
+            shard.query("SELECT book_id, COUNT(*) FROM favorite GROUP BY book_id",
+                    rs -> {
+                        local.put(rs.getLong(1), rs.getLong(2));
+                    });
+            return local;
+        }));
+        for (Map<Long, Long> shardCounts : perShard) {
+            shardCounts.forEach((bookId, count) -> counts.merge(bookId, count, Long::sum));
+        }
+        return counts;
+    }
+
+    @Override
+    public Long findChunkEndByUserId(Long userId, int limit) {
+        return withReadLock(() -> shards.shardFor(userId).queryForObject(
+                "SELECT MAX(id) FROM (SELECT id FROM favorite USE INDEX (idx_favorite_user_id) WHERE user_id = ? "
+                        + "ORDER BY user_id, id FETCH FIRST ? ROWS ONLY) chunk",
+                Long.class, userId, limit));
+    }
+
+    @Override
+    public int deleteByUserIdUpTo(Long userId, Long maxId) {
+        return deleteWhere(userId, "user_id = ? AND id <= ?", userId, maxId);
+    }
+
+    @Override
+    public int deleteByBookIds(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(bookIds.size(), "?"));
+        return deleteWhere(null, "book_id IN (" + placeholders + ")", bookIds.toArray());
+    }
+
+    // Number of rows held by each shard, in shard order
+    public List<Long> getShardSizes() {
+        return withReadLock(() -> fanOut(shards.templates,
+                shard -> shard.queryForObject("SELECT COUNT(*) FROM favorite", Long.class)));
+    }
+
+    // Moves every favorite into a new set of shardCount databases and switches over to it.
+    // Reads and writes keep being served during the copy; only one rebalance runs at a time.
+    public void rebalance(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1.");
+        }
+        if (!rebalancing.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebalance is already running.");
+        }
+
+        try {
+            ShardSet current = shards;
+            if (current.templates.size() == shardCount) {
+                return;
+            }
+
+            Migration pending = new Migration(openShards(current.generation + 1, shardCount));
+            rebalanceLock.writeLock().lock();
+            try {
+                migration = pending;
+            } finally {
+                rebalanceLock.writeLock().unlock();
+            }
+
+            try {
+                for (JdbcTemplate source : current.templates) {
+                    copy(source, pending);
+                }
+            } catch (RuntimeException e) {
+                rebalanceLock.writeLock().lock();
+                try {
+                    migration = null;
+                } finally {
+                    rebalanceLock.writeLock().unlock();
+                }
+                close(pending.next);
+                throw e;
+            }
+
+            rebalanceLock.writeLock().lock();
+            try {
+                shards = pending.next;
+                migration = null;
+            } finally {
+                rebalanceLock.writeLock().unlock();
+            }
+            close(current);
+            log.info("Favorites rebalanced from {} to {} shards", current.templates.size(), shardCount);
+        } finally {
+            rebalancing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+        for (HikariDataSource dataSource : shards.dataSources) {
+            dataSource.close();
+        }
+    }
+
+    // Copies one source shard in id order. Rows written meanwhile are mirrored by the writers,
+    // so the copy only has to catch up with what existed before and undo rows deleted under it.
+    private void copy(JdbcTemplate source, Migration pending) {
+        int shardCount = pending.next.templates.size();
+        long after = 0;
+        while (true) {
+            List<Object[]> rows = source.query(
+                    "SELECT id, user_id, book_id FROM favorite WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)},
+                    after, COPY_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            List<List<Object[]>> batches = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                batches.add(new ArrayList<>());
+            }
+            for (Object[] row : rows) {
+                batches.get(shardIndex((Long) row[1], shardCount)).add(row);
+            }
+            for (int i = 0; i < shardCount; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    merge(pending.next.templates.get(i), batches.get(i));
+                }
+            }
+
+            // Checked after the merge: a delete that registered its tombstone later also
+            // deleted the row from the next shards after it had been copied there
+            for (Object[] row : rows) {
+                if (pending.tombstones.contains((Long) row[0])) {
+                    pending.next.shardFor((Long) row[1]).update("DELETE FROM favorite WHERE id = ?", row[0]);
+                }
+            }
+            after = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    // A copied row whose user/book pair is already taken in the next shards was deleted and
+    // favorited again meanwhile; the newer row wins and the stale one is skipped
+    private void merge(JdbcTemplate target, List<Object[]> batch) {
+        try {
+            target.batchUpdate(COPY, batch);
+        } catch (DataIntegrityViolationException e) {
+            for (Object[] row : batch) {
+                try {
+                    target.update(COPY, row);
+                } catch (DataIntegrityViolationException duplicate) {
+                    log.debug("Skipping favorite {} superseded during the rebalance", row[0]);
+                }
+            }
+        }
+    }
+
+    // The current shards enforce the user/book pair, so a conflicting row in the next shards is
+    // a copy of a deleted favorite that the copier has not removed yet
+    private static void mirror(JdbcTemplate target, Object[] row) {
+        try {
+            target.update(COPY, row);
+        } catch (DataIntegrityViolationException e) {
+            target.update("DELETE FROM favorite WHERE user_id = ? AND book_id = ?", row[1], row[2]);
+            target.update(COPY, row);
+        }
+    }
+
+    // Deletes on the shard of userId, or on every shard when userId is null. While a rebalance
+    // runs, the matching ids are looked up first, remembered as tombstones and deleted by id
+    // from both shard sets.
+    private int deleteWhere(Long userId, String where, Object... args) {
+        return withReadLock(() -> {
+            ShardSet current = shards;
+            List<JdbcTemplate> sources = userId == null ? current.templates : List.of(current.shardFor(userId));
+            Migration pending = migration;
+            if (pending == null) {
+                int deleted = 0;
+                for (Integer shardDeleted : fanOut(sources, shard -> shard.update("DELETE FROM favorite WHERE " + where, args))) {
+                    deleted += shardDeleted;
+                }
+                return deleted;
+            }
+
+            int deleted = 0;
+            for (List<Object[]> rows : fanOut(sources, shard -> {
+                List<Object[]> matching = shard.query("SELECT id, user_id FROM favorite WHERE " + where,
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2)}, args);
+                for (Object[] row : matching) {
+                    pending.tombstones.add((Long) row[0]);
+                }
+                shard.batchUpdate("DELETE FROM favorite WHERE id = ?", idsOf(matching));
+                return matching;
+            })) {
+                for (Object[] row : rows) {
+                    pending.next.shardFor((Long) row[1]).update("DELETE FROM favorite WHERE id = ?", row[0]);
+                }
+                deleted += rows.size();
+            }
+            return deleted;
+        });
+    }
+
+    private static List<Object[]> idsOf(List<Object[]> rows) {
+        List<Object[]> ids = new ArrayList<>();
+        for (Object[] row : rows) {
+            ids.add(new Object[]{row[0]});
+        }
+        return ids;
+    }
+
+    private <T> T withReadLock(Supplier<T> action) {
+        rebalanceLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    private static int shardIndex(long userId, int shardCount) {
+        // Spread sequential ids before reducing them to a shard number
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), shardCount);
+    }
+
+    private <T> List<T> fanOut(List<JdbcTemplate> targets, Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (JdbcTemplate shard : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), fanOut));
+        }
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // One connection pool per shard, so shard calls do not open a new connection each time
+    private ShardSet openShards(int generation, int shardCount) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        List<JdbcTemplate> templates = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(String.format("favorite-shard-g%d-s%d", generation, i));
+            dataSource.setJdbcUrl(String.format(urlTemplate, generation, i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSources.add(dataSource);
+            JdbcTemplate template = new JdbcTemplate(dataSource);
+            for (String statement : SCHEMA) {
+                template.execute(statement);
+            }
+            templates.add(template);
+        }
+        return new ShardSet(generation, dataSources, templates);
+    }
+
+    private void close(ShardSet shardSet) {
+        for (int i = 0; i < shardSet.templates.size(); i++) {
+            shardSet.templates.get(i).execute("DROP ALL OBJECTS");
+            shardSet.dataSources.get(i).close();
+        }
+    }
+
+    private static class ShardSet {
+        private final int generation;
+        private final List<HikariDataSource> dataSources;
+        private final List<JdbcTemplate> templates;
+
+        private ShardSet(int generation, List<HikariDataSource> dataSources, List<JdbcTemplate> templates) {
+            this.generation = generation;
+            this.dataSources = dataSources;
+            this.templates = templates;
+        }
+
+        private JdbcTemplate shardFor(Long userId) {
+            return templates.get(shardIndex(userId, templates.size()));
+        }
+    }
+
+    private static class Migration {
+        private final ShardSet next;
+        // Ids deleted since the migration started
+        private final Set<Long> tombstones = ConcurrentHashMap.newKeySet();
+
+        private Migration(ShardSet next) {
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.MagdasLarisa_Project.Search;
+
+import com.example.MagdasLarisa_Project.Models.Suggestion;
+import com.example.MagdasLarisa_Project.Repository.BookRepository;
+import com.example.MagdasLarisa_Project.Repository.FavoriteStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+// Typeahead over book titles and authors, ranked by how many users have the books in favorites.
+//
+// Each build produces an immutable Snapshot: all distinct normalized titles and authors sorted
+// in one array, so the entries starting with a prefix form one contiguous range found by binary
+// search, plus a segment tree over the scores to pull the best entries of that range in
+// O(limit * log n). Book mutations only mark the index dirty; a background task rebuilds at most
+// once per rebuild interval and swaps the new snapshot in with a single volatile write.
+// Favorite changes do not trigger rebuilds: popularity only moves the ranking, so it is
+// refreshed on the slower popularity refresh interval instead.
+@Component
+public class BookSuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final BookRepository bookRepository;
+    private final FavoriteStore favoriteStore;
+    private final long rebuildIntervalMs;
+    private final long popularityRefreshIntervalMs;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-suggestions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public BookSuggestionIndex(BookRepository bookRepository,
+                               FavoriteStore favoriteStore,
+                               @Value("${bookstore.suggest.rebuild-interval-ms:1000}") long rebuildIntervalMs,
+                               @Value("${bookstore.suggest.popularity-refresh-interval-ms:60000}") long popularityRefreshIntervalMs) {
+        this.bookRepository = bookRepository;
+        this.favoriteStore = favoriteStore;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.popularityRefreshIntervalMs = popularityRefreshIntervalMs;
+    }
+
+    // The sample data is only in place once the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::rebuildIfDirty, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::markDirty, popularityRefreshIntervalMs, popularityRefreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Called after any change to books; the next scheduled run rebuilds once for all of them
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return snapshot.top(normalize(prefix), limit);
+    }
+
+    private void rebuildIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            log.warn("Rebuilding the book suggestion index failed", e);
+        }
+    }
+
+    private void rebuild() {
+        Map<Long, Long> favoriteCounts = favoriteStore.countByBookId();
+        Map<String, Entry> entries = new HashMap<>();
+        for (Object[] row : bookRepository.findTitlesAndAuthors()) {
+            long popularity = favoriteCounts.getOrDefault((Long) row[0], 0L);
+            add(entries, (String) row[1], Suggestion.Type.TITLE, popularity);
+            add(entries, (String) row[2], Suggestion.Type.AUTHOR, popularity);
+        }
+        snapshot = new Snapshot(new ArrayList<>(entries.values()));
+    }
+
+    private static void add(Map<String, Entry> entries, String text, Suggestion.Type type, long popularity) {
+        if (text == null) {
+            return;
+        }
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        // Books sharing a title, or an author, collapse into one suggestion with their summed popularity
+        Entry entry = entries.computeIfAbsent(type.name() + '\u0000' + key,
+                ignored -> new Entry(key, text, type));
+        entry.popularity += popularity;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    static class Entry {
+        private final String key;
+        private final String text;
+        private final Suggestion.Type type;
+        long popularity;
+
+        Entry(String key, String text, Suggestion.Type type) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new ArrayList<>());
+
+        private final String[] keys;
+        private final String[] texts;
+        private final Suggestion.Type[] types;
+        private final long[] scores;
+        // Bottom-up segment tree: leaves at [size, 2 * size) hold entry indexes,
+        // inner nodes the index of the best scoring entry below them (-1 when empty)
+        private final int size;
+        private final int[] tree;
+
+        // Sorts entries in place by key, then type
+        Snapshot(List<Entry> entries) {
+            entries.sort(Comparator.comparing((Entry entry) -> entry.key).thenComparing(entry -> entry.type));
+            int count = entries.size();
+            keys = new String[count];
+            texts = new String[count];
+            types = new Suggestion.Type[count];
+            scores = new long[count];
+            for (int i = 0; i < count; i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.key;
+                texts[i] = entry.text;
+                types[i] = entry.type;
+                scores[i] = entry.popularity;
+            }
+
+            size = Math.max(1, count);
+            tree = new int[2 * size];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < count; i++) {
+                tree[size + i] = i;
+            }
+            for (int node = size - 1; node > 0; node--) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        List<Suggestion> top(String prefix, int limit) {
+            List<Suggestion> result = new ArrayList<>();
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to || limit <= 0) {
+                return result;
+            }
+
+            // Each queued range is represented by its best entry; taking it splits the range in two
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[0], b[0]) == a[0] ? -1 : 1);
+            ranges.add(new int[]{best(from, to), from, to});
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int index = range[0];
+                result.add(new Suggestion(texts[index], types[index], scores[index]));
+                if (range[1] < index) {
+                    ranges.add(new int[]{best(range[1], index), range[1], index});
+                }
+                if (index + 1 < range[2]) {
+                    ranges.add(new int[]{best(index + 1, range[2]), index + 1, range[2]});
+                }
+            }
+            return result;
+        }
+
+        // Index of the best entry in [from, to)
+        int best(int from, int to) {
+            int result = -1;
+            for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+                if ((left & 1) == 1) {
+                    result = better(result, tree[left++]);
+                }
+                if ((right & 1) == 1) {
+                    result = better(result, tree[--right]);
+                }
+            }
+            return result;
+        }
+
+        // Higher popularity wins; on a tie the alphabetically first entry wins
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (scores[a] != scores[b]) {
+                return scores[a] > scores[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+
+        int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.MagdasLarisa_Project.Search;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.TrendingBook;
+import com.example.MagdasLarisa_Project.Repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Books that collected the most favorites recently.
+//
+// Favorite additions are counted in a ring of time buckets, each a fixed-size open-addressing
+// table of book id -> count updated with CAS only. A bucket is replaced, not cleared, when the
+// ring wraps around to it, so writers never lock. The memory bound is
+// buckets * books-per-bucket * 16 bytes; additions for books that no longer fit in a full
+// bucket are dropped, with one warning per bucket. Reads merge the buckets inside the window,
+// weighting older buckets down exponentially, and only load the winning books from the books
+// table.
+//
+// Windows are whole numbers of buckets. A window of n buckets covers the current, partially
+// filled bucket and the n - 1 before it, so it reaches back between (n - 1) and n bucket
+// durations of real time.
+@Component
+public class TrendingBooks {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingBooks.class);
+
+    private final BookRepository bookRepository;
+    private final Clock clock;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int booksPerBucket;
+    private final double halfLifeRatio;
+
+    private final AtomicReferenceArray<Bucket> ring;
+
+    @Autowired
+    public TrendingBooks(BookRepository bookRepository,
+                         @Value("${bookstore.trending.bucket-seconds:300}") long bucketSeconds,
+                         @Value("${bookstore.trending.buckets:288}") int bucketCount,
+                         @Value("${bookstore.trending.books-per-bucket:1024}") int booksPerBucket,
+                         @Value("${bookstore.trending.half-life-ratio:0.5}") double halfLifeRatio) {
+        this(bookRepository, Clock.systemUTC(), bucketSeconds, bucketCount, booksPerBucket, halfLifeRatio);
+    }
+
+    TrendingBooks(BookRepository bookRepository, Clock clock,
+                  long bucketSeconds, int bucketCount, int booksPerBucket, double halfLifeRatio) {
+        if (bucketSeconds < 1 || bucketCount < 1 || booksPerBucket < 1) {
+            throw new IllegalArgumentException("bookstore.trending.* sizes must be at least 1");
+        }
+        this.bookRepository = bookRepository;
+        this.clock = clock;
+        this.bucketMillis = bucketSeconds * 1000;
+        this.bucketCount = bucketCount;
+        // Table capacity is rounded up to a power of two so probing can mask instead of divide
+        int capacity = 1;
+        while (capacity < booksPerBucket) {
+            capacity <<= 1;
+        }
+        this.booksPerBucket = capacity;
+        this.halfLifeRatio = halfLifeRatio;
+        this.ring = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    // Longest window that still fits in the ring
+    public Duration getMaxWindow() {
+        return Duration.ofMillis(bucketMillis * bucketCount);
+    }
+
+    // Windows must be a positive multiple of this
+    public Duration getBucketDuration() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    public void recordFavoriteAdded(Long bookId) {
+        long slot = clock.millis() / bucketMillis;
+        int index = (int) (slot % bucketCount);
+        Bucket bucket = ring.get(index);
+        while (bucket == null || bucket.slot < slot) {
+            Bucket fresh = new Bucket(slot, booksPerBucket);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = ring.get(index);
+            }
+        }
+        // A writer delayed past a full ring turn would land in a newer bucket; drop it instead
+        if (bucket.slot == slot && !bucket.increment(bookId) && bucket.overflowLogged.compareAndSet(false, true)) {
+            log.warn("Trending bucket is full with {} books; favorites of further books are not counted for the rest of this {} s bucket",
+                    booksPerBucket, bucketMillis / 1000);
+        }
+    }
+
+    public List<TrendingBook> trending(Duration window, int limit) {
+        long windowMillis = window.toMillis();
+        if (windowMillis < bucketMillis || windowMillis % bucketMillis != 0 || windowMillis / bucketMillis > bucketCount) {
+            throw new IllegalArgumentException("The window must be a multiple of the bucket duration and at most the ring length.");
+        }
+        long currentSlot = clock.millis() / bucketMillis;
+        long windowBuckets = windowMillis / bucketMillis;
+        double halfLifeBuckets = Math.max(1e-9, windowBuckets * halfLifeRatio);
+
+        Map<Long, double[]> totals = new HashMap<>();
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null) {
+                continue;
+            }
+            long age = currentSlot - bucket.slot;
+            if (age < 0 || age >= windowBuckets) {
+                continue;
+            }
+            double weight = Math.pow(0.5, age / halfLifeBuckets);
+            bucket.forEach((bookId, count) -> {
+                double[] total = totals.computeIfAbsent(bookId, ignored -> new double[2]);
+                total[0] += count;
+                total[1] += count * weight;
+            });
+        }
+
+        List<Map.Entry<Long, double[]>> ranked = new ArrayList<>(totals.entrySet());
+        ranked.sort((a, b) -> Double.compare(b.getValue()[1], a.getValue()[1]));
+        if (ranked.size() > limit) {
+            ranked = ranked.subList(0, limit);
+        }
+
+        List<Long> bookIds = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : ranked) {
+            bookIds.add(entry.getKey());
+        }
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            books.put(book.getId(), book);
+        }
+
+        List<TrendingBook> result = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : ranked) {
+            Book book = books.get(entry.getKey());
+            if (book != null) {
+                result.add(new TrendingBook(book, (long) entry.getValue()[0], entry.getValue()[1]));
+            }
+        }
+        return result;
+    }
+
+    interface CountConsumer {
+        void accept(long bookId, long count);
+    }
+
+    static class Bucket {
+        private static final long EMPTY = 0;
+
+        private final long slot;
+        private final int mask;
+        private final AtomicLongArray bookIds;
+        private final AtomicLongArray counts;
+        private final AtomicBoolean overflowLogged = new AtomicBoolean();
+
+        // capacity must be a power of two
+        Bucket(long slot, int capacity) {
+            this.slot = slot;
+            this.mask = capacity - 1;
+            this.bookIds = new AtomicLongArray(capacity);
+            this.counts = new AtomicLongArray(capacity);
+        }
+
+        // Linear probing; returns false when the table is full and the book is not in it
+        boolean increment(long bookId) {
+            int start = (int) (bookId * 0x9E3779B97F4A7C15L >>> 32) & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                int i = (start + probe) & mask;
+                long current = bookIds.get(i);
+                if (current == EMPTY && (bookIds.compareAndSet(i, EMPTY, bookId) || bookIds.get(i) == bookId)) {
+                    counts.incrementAndGet(i);
+                    return true;
+                }
+                if (current == bookId) {
+                    counts.incrementAndGet(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void forEach(CountConsumer consumer) {
+            for (int i = 0; i <= mask; i++) {
+                long bookId = bookIds.get(i);
+                long count = counts.get(i);
+                if (bookId != EMPTY && count > 0) {
+                    consumer.accept(bookId, count);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.MagdasLarisa_Project.Serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Collection;
+
+// Writes books, favorites and users (single or in collections) as CBOR when the client
+// sends Accept: application/cbor. Collections holding anything else are handed to the
+// regular reflective CBOR mapper.
+public class CborHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final ObjectMapper fallbackMapper;
+    private final CBORFactory factory;
+
+    public CborHttpMessageConverter(ObjectMapper fallbackMapper) {
+        super(MediaType.APPLICATION_CBOR);
+        this.fallbackMapper = fallbackMapper;
+        this.factory = (CBORFactory) fallbackMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz) || CborWriters.canWrite(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        throw new HttpMessageNotReadableException("Reading CBOR request bodies is not supported.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        CBORGenerator generator = factory.createGenerator(outputMessage.getBody());
+        if (value instanceof Collection<?> collection) {
+            if (allWritable(collection)) {
+                generator.writeStartArray(collection, collection.size());
+                for (Object element : collection) {
+                    CborWriters.write(generator, element);
+                }
+                generator.writeEndArray();
+            } else {
+                fallbackMapper.writeValue(generator, collection);
+            }
+        } else {
+            CborWriters.write(generator, value);
+        }
+        generator.flush();
+    }
+
+    private static boolean allWritable(Collection<?> collection) {
+        for (Object element : collection) {
+            if (element == null || !CborWriters.canWrite(element.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.MagdasLarisa_Project.Serialization;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import com.example.MagdasLarisa_Project.Models.User;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+
+import java.io.IOException;
+
+// Hand-written CBOR writers for the models returned in bulk. They produce the same
+// field names and nesting as the JSON responses, as definite-length maps, without
+// going through Jackson's reflective bean serializers.
+public final class CborWriters {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString PASSWORD = new SerializedString("password");
+    private static final SerializedString ROLE = new SerializedString("role");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString AUTHOR = new SerializedString("author");
+    private static final SerializedString GENRE = new SerializedString("genre");
+    private static final SerializedString PUBLISHED_YEAR = new SerializedString("publishedYear");
+    private static final SerializedString USER = new SerializedString("user");
+    private static final SerializedString BOOK = new SerializedString("book");
+
+    private CborWriters() {}
+
+    public static boolean canWrite(Class<?> clazz) {
+        return Book.class.isAssignableFrom(clazz) || Favorite.class.isAssignableFrom(clazz) || User.class.isAssignableFrom(clazz);
+    }
+
+    public static void write(CBORGenerator generator, Object value) throws IOException {
+        if (value instanceof Book book) {
+            writeBook(generator, book);
+        } else if (value instanceof Favorite favorite) {
+            writeFavorite(generator, favorite);
+        } else if (value instanceof User user) {
+            writeUser(generator, user);
+        } else {
+            throw new IllegalArgumentException("No CBOR writer for " + value.getClass().getName());
+        }
+    }
+
+    public static void writeUser(CBORGenerator generator, User user) throws IOException {
+        if (user == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(user, 5);
+        generator.writeFieldName(ID);
+        writeLong(generator, user.getId());
+        generator.writeFieldName(USERNAME);
+        generator.writeString(user.getUsername());
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.getEmail());
+        generator.writeFieldName(PASSWORD);
+        generator.writeString(user.getPassword());
+        generator.writeFieldName(ROLE);
+        generator.writeString(user.getRole());
+        generator.writeEndObject();
+    }
+
+    public static void writeBook(CBORGenerator generator, Book book) throws IOException {
+        if (book == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(book, 6);
+        generator.writeFieldName(ID);
+        writeLong(generator, book.getId());
+        generator.writeFieldName(TITLE);
+        generator.writeString(book.getTitle());
+        generator.writeFieldName(AUTHOR);
+        generator.writeString(book.getAuthor());
+        generator.writeFieldName(GENRE);
+        generator.writeString(book.getGenre());
+        generator.writeFieldName(PUBLISHED_YEAR);
+        generator.writeNumber(book.getPublishedYear());
+        generator.writeFieldName(USER);
+        writeUser(generator, book.getUser());
+        generator.writeEndObject();
+    }
+
+    public static void writeFavorite(CBORGenerator generator, Favorite favorite) throws IOException {
+        if (favorite == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject(favorite, 3);
+        generator.writeFieldName(ID);
+        writeLong(generator, favorite.getId());
+        generator.writeFieldName(USER);
+        writeUser(generator, favorite.getUser());
+        generator.writeFieldName(BOOK);
+        writeBook(generator, favorite.getBook());
+        generator.writeEndObject();
+    }
+
+    private static void writeLong(CBORGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.MagdasLarisa_Project.Services;
+
+import com.example.MagdasLarisa_Project.Journal.MutationJournal;
+import com.example.MagdasLarisa_Project.Models.UserDeletionJob;
+import com.example.MagdasLarisa_Project.Repository.BookRepository;
+import com.example.MagdasLarisa_Project.Repository.FavoriteStore;
+import com.example.MagdasLarisa_Project.Repository.UserRepository;
+import com.example.MagdasLarisa_Project.Search.BookSuggestionIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// Deletes a user together with everything that references it: the user's favorites,
+// the user's books with the favorites pointing at them, and finally the user row.
+// Every step is a set-based DELETE of the next chunk of ids, committed on its own, so a
+// large author never holds the book/favorite tables locked for the whole cascade. Chunks are
+// found by walking an index in id order, so each one costs the same however large the user is.
+// Each committed chunk is journaled right away, so a cascade that fails part way is
+// replayed exactly as far as it got.
+@Service
+public class UserDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDeletionService.class);
+
+    // A favorite added to a book of the chunk between its two deletes makes the book delete
+    // fail on the foreign key; the chunk is then rerun
+    private static final int BOOK_DELETE_ATTEMPTS = 5;
+    // Likewise a favorite or book the user adds while the cascade runs makes the user delete
+    // fail; the favorites and books steps are then rerun
+    private static final int USER_DELETE_ATTEMPTS = 5;
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final FavoriteStore favoriteStore;
+    private final MutationJournal mutationJournal;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long jobTtlMs;
+
+    private final Map<String, UserDeletionJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserDeletionService(UserRepository userRepository,
+                               BookRepository bookRepository,
+                               FavoriteStore favoriteStore,
+                               MutationJournal mutationJournal,
+                               BookSuggestionIndex bookSuggestionIndex,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bookstore.user-deletion.chunk-size:5000}") int chunkSize,
+                               @Value("${bookstore.user-deletion.job-ttl-ms:3600000}") long jobTtlMs) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.favoriteStore = favoriteStore;
+        this.mutationJournal = mutationJournal;
+        this.bookSuggestionIndex = bookSuggestionIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.jobTtlMs = jobTtlMs;
+    }
+
+    // Runs the whole cascade on the calling thread
+    public UserDeletionJob deleteUser(Long userId) {
+        UserDeletionJob job = new UserDeletionJob(UUID.randomUUID().toString(), userId);
+        run(job);
+        return job;
+    }
+
+    // Starts the cascade on the background worker; progress can be polled with getJob
+    // until the job has been finished for longer than the job TTL
+    public UserDeletionJob deleteUserAsync(Long userId) {
+        pruneFinishedJobs();
+        UserDeletionJob job = new UserDeletionJob(UUID.randomUUID().toString(), userId);
+        jobs.put(job.getJobId(), job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    public Optional<UserDeletionJob> getJob(String jobId) {
+        pruneFinishedJobs();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - jobTtlMs;
+        jobs.values().removeIf(job -> job.getFinishedAt() != 0 && job.getFinishedAt() < cutoff);
+    }
+
+    private void run(UserDeletionJob job) {
+        Long userId = job.getUserId();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                // Ordered against the user's own favorite additions and removals
+                deleteInChunks("favorite", userId,
+                        () -> favoriteStore.findChunkEndByUserId(userId, chunkSize),
+                        maxId -> favoriteStore.deleteByUserIdUpTo(userId, maxId),
+                        maxId -> mutationJournal.recordFavoritesOfUserDeleted(userId, maxId),
+                        job::addFavoritesDeleted);
+                deleteBooks(job);
+                try {
+                    mutationJournal.inOrder("users", userId, () -> {
+                        transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(userId));
+                        mutationJournal.recordUserDeleted(userId);
+                    });
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    if (attempt == USER_DELETE_ATTEMPTS) {
+                        throw e;
+                    }
+                    log.info("User {} gained favorites or books during deletion, removing them again", userId);
+                }
+            }
+            job.setStatus(UserDeletionJob.Status.COMPLETED);
+        } catch (RuntimeException e) {
+            log.error("Deleting user {} failed (job {})", userId, job.getJobId(), e);
+            job.setError("The deletion stopped part way through; the rows removed so far stay deleted and it can be retried.");
+            job.setStatus(UserDeletionJob.Status.FAILED);
+        } finally {
+            job.setFinishedAt(System.currentTimeMillis());
+            bookSuggestionIndex.markDirty();
+        }
+    }
+
+    // Walks the user's books by id and deletes each chunk together with its favorites, so the
+    // favorites are found through the book_id index instead of a join over all the user's books
+    private void deleteBooks(UserDeletionJob job) {
+        Long userId = job.getUserId();
+        long after = 0;
+        while (true) {
+            List<Long> bookIds = bookRepository.findIdsByUserIdAfter(userId, after, chunkSize);
+            if (bookIds.isEmpty()) {
+                return;
+            }
+            deleteBookChunk(job, bookIds);
+            after = bookIds.get(bookIds.size() - 1);
+        }
+    }
+
+    private void deleteBookChunk(UserDeletionJob job, List<Long> bookIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int[] deleted = new int[2];
+                // Ordered against updates and deletes of the same books
+                mutationJournal.inOrder("book", bookIds, () -> {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        deleted[0] = favoriteStore.deleteByBookIds(bookIds);
+                        deleted[1] = bookRepository.deleteByIds(bookIds);
+                    });
+                    // Grouped by type so replay sends each group as one batch
+                    for (Long bookId : bookIds) {
+                        mutationJournal.recordFavoritesOfBookDeleted(bookId);
+                    }
+                    for (Long bookId : bookIds) {
+                        mutationJournal.recordBookDeleted(bookId);
+                    }
+                });
+                job.addFavoritesDeleted(deleted[0]);
+                job.addBooksDeleted(deleted[1]);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == BOOK_DELETE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("New favorites appeared on books of user {} during deletion, removing them again", job.getUserId());
+            }
+        }
+    }
+
+    // Deletes the next chunk of ids in its own transaction and journals it once committed,
+    // until no matching rows are left. The journal stripe of table/orderId is held per chunk
+    // only, so the owner's other writes can go in between chunks.
+    private void deleteInChunks(String table, Long orderId, Supplier<Long> chunkEnd, ToIntFunction<Long> delete,
+                                LongConsumer journal, LongConsumer progress) {
+        while (true) {
+            Long[] maxId = new Long[1];
+            int[] deleted = new int[1];
+            mutationJournal.inOrder(table, orderId, () -> {
+                transactionTemplate.executeWithoutResult(status -> {
+                    maxId[0] = chunkEnd.get();
+                    deleted[0] = maxId[0] == null ? 0 : delete.applyAsInt(maxId[0]);
+                });
+                if (maxId[0] != null) {
+                    journal.accept(maxId[0]);
+                }
+            });
+            if (maxId[0] == null) {
+                return;
+            }
+            progress.accept(deleted[0]);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
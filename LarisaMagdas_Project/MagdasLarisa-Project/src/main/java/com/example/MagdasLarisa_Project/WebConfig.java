@@ -0,0 +1,34 @@
+package com.example.MagdasLarisa_Project;
+
+import com.example.MagdasLarisa_Project.Serialization.CborHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // JSON stays the default; the CBOR converter is placed in front of the reflective
+    // CBOR converter so it only answers requests that ask for application/cbor.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        int index = converters.size();
+        ObjectMapper cborMapper = null;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2CborHttpMessageConverter existing) {
+                index = i;
+                cborMapper = existing.getObjectMapper();
+                break;
+            }
+        }
+        if (cborMapper == null) {
+            cborMapper = new CBORMapper();
+        }
+        converters.add(index, new CborHttpMessageConverter(cborMapper));
+    }
+}
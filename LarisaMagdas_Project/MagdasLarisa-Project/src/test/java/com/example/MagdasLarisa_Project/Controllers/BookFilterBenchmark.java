@@ -0,0 +1,106 @@
+package com.example.MagdasLarisa_Project.Controllers;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Latency of GET /api/books/filter for each supported criteria combination as the catalogue
+// grows. The catalogue sizes come from -Dbenchmark.books (default 10000,100000,1000000); pass
+// e.g. -Dbenchmark.books=10000,10000000 with enough heap for the 10M row in-memory database.
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+@SpringBootTest(properties = "bookstore.journal.enabled=false")
+class BookFilterBenchmark {
+
+    private static final int OWNERS = 1_000;
+    private static final int GENRES = 50;
+    private static final int AUTHORS = 10_000;
+    private static final int INSERT_CHUNK = 50_000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 200;
+
+    @Autowired
+    private BookController bookController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void filterLatency() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password, role) "
+                + "SELECT 'owner' || x, 'owner' || x || '@example.com', 'secret', 'ROLE_AUTHOR' FROM SYSTEM_RANGE(1, ?)", OWNERS);
+        Long firstOwner = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE username LIKE 'owner%'", Long.class);
+
+        Map<String, Supplier<ResponseEntity<?>>> filters = new LinkedHashMap<>();
+        filters.put("genre", () -> filter("Genre 7", null, null, null, null));
+        filters.put("author", () -> filter(null, "Author 42", null, null, null));
+        filters.put("owner", () -> filter(null, null, null, null, "owner13"));
+        filters.put("genre+author", () -> filter("Genre 42", "Author 42", null, null, null));
+        filters.put("owner+genre", () -> filter("Genre 13", null, null, null, "owner13"));
+        filters.put("owner+author", () -> filter(null, "Author 13", null, null, "owner13"));
+        filters.put("genre+author+owner", () -> filter("Genre 13", "Author 13", null, null, "owner13"));
+        filters.put("years (wide)", () -> filter(null, null, 1950, 2000, null));
+        filters.put("years (narrow)", () -> filter(null, null, 2023, 2023, null));
+        filters.put("genre+years", () -> filter("Genre 7", null, 1990, 2010, null));
+
+        System.out.printf("%-12s %-20s %10s %10s%n", "books", "criteria", "p50 us", "p99 us");
+        long loaded = 0;
+        for (long books : catalogueSizes()) {
+            // Loaded in chunks so no single transaction has to hold millions of undo entries
+            for (long from = loaded + 1; from <= books; from += INSERT_CHUNK) {
+                jdbcTemplate.update("INSERT INTO book (title, author, genre, published_year, user_id) "
+                        + "SELECT 'Title ' || x, 'Author ' || MOD(x, ?), 'Genre ' || MOD(x, ?), 1950 + MOD(x, 75), ? + MOD(x, ?) "
+                        + "FROM SYSTEM_RANGE(?, ?)", AUTHORS, GENRES, firstOwner, OWNERS, from, Math.min(books, from + INSERT_CHUNK - 1));
+            }
+            jdbcTemplate.execute("ANALYZE");
+            loaded = books;
+
+            for (Map.Entry<String, Supplier<ResponseEntity<?>>> filter : filters.entrySet()) {
+                long[] micros = measure(filter.getValue());
+                System.out.printf("%-12d %-20s %10d %10d%n", books, filter.getKey(),
+                        micros[MEASURED_ROUNDS / 2], micros[MEASURED_ROUNDS * 99 / 100]);
+            }
+        }
+
+        // The index H2 picks for a pair of criteria, to check against the composite indexes on Book
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT * FROM book WHERE user_id = ? AND genre = 'Genre 13' ORDER BY id FETCH FIRST 21 ROWS ONLY",
+                String.class, firstOwner + 13);
+        System.out.println("owner+genre plan: " + plan.replaceAll("\\s+", " "));
+    }
+
+    private ResponseEntity<?> filter(String genre, String author, Integer yearFrom, Integer yearTo, String owner) {
+        return bookController.filterBooks(genre, author, yearFrom, yearTo, owner, null, 20);
+    }
+
+    private static long[] measure(Supplier<ResponseEntity<?>> filter) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            filter.get();
+        }
+        long[] micros = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            ResponseEntity<?> response = filter.get();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+            assertTrue(response.getStatusCode().is2xxSuccessful() || response.getStatusCode().value() == 404);
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private static long[] catalogueSizes() {
+        return Arrays.stream(System.getProperty("benchmark.books", "10000,100000,1000000").split(","))
+                .mapToLong(size -> Long.parseLong(size.trim()))
+                .toArray();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.MagdasLarisa_Project.Controllers;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"bookstore.journal.enabled=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+class BookFilterQueryTest {
+
+    @Autowired
+    private BookController bookController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loadsASliceAndItsOwnersInOneQuery() {
+        String genre = "Genre " + UUID.randomUUID();
+        // 20 books spread over 10 owners, so loading the owners one by one would show up
+        for (int owner = 0; owner < 10; owner++) {
+            String username = "owner-" + UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO users (username, email, password, role) VALUES (?, ?, 'secret', 'ROLE_AUTHOR')",
+                    username, username + "@example.com");
+            jdbcTemplate.update("INSERT INTO book (title, author, genre, published_year, user_id) "
+                    + "SELECT 'Title ' || x, 'Author', ?, 2000, (SELECT id FROM users WHERE username = ?) FROM SYSTEM_RANGE(1, 2)",
+                    genre, username);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<?> response = bookController.filterBooks(genre, null, null, null, null, null, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.MagdasLarisa_Project.Journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JournalRecordTest {
+
+    @Test
+    void roundTripsEveryArgumentType() {
+        JournalRecord record = new JournalRecord(JournalRecord.Type.BOOK, 42L, "Crime și pedeapsă", "", null, 1866, Long.MIN_VALUE);
+
+        ByteBuffer data = ByteBuffer.wrap(record.frame());
+        JournalRecord read = JournalRecord.read(data);
+
+        assertEquals(JournalRecord.Type.BOOK, read.getType());
+        assertArrayEquals(record.getArgs(), read.getArgs());
+        assertEquals(0, data.remaining());
+    }
+
+    @Test
+    void readsConsecutiveRecordsUntilTheZeroLength() {
+        ByteBuffer data = ByteBuffer.allocate(256);
+        data.put(new JournalRecord(JournalRecord.Type.USER_DELETE, 1L).frame());
+        data.put(new JournalRecord(JournalRecord.Type.FAVORITE_DELETE, 2L, 3L).frame());
+        data.flip().limit(data.capacity());
+
+        assertArrayEquals(new Object[]{1L}, JournalRecord.read(data).getArgs());
+        assertArrayEquals(new Object[]{2L, 3L}, JournalRecord.read(data).getArgs());
+        assertNull(JournalRecord.read(data));
+    }
+
+    @Test
+    void rejectsARecordTruncatedAtTheEndOfTheData() {
+        byte[] framed = new JournalRecord(JournalRecord.Type.USER, 1L, "reader", "reader@example.com", "secret", "ROLE_USER").frame();
+
+        ByteBuffer truncated = ByteBuffer.wrap(framed, 0, framed.length - 3).slice();
+
+        assertThrows(IllegalArgumentException.class, () -> JournalRecord.read(truncated));
+    }
+
+    @Test
+    void rejectsARecordTornInsideTheZeroFilledSegment() {
+        byte[] framed = new JournalRecord(JournalRecord.Type.USER, 1L, "reader", "reader@example.com", "secret", "ROLE_USER").frame();
+        // Only the first half of the record reached the mapping, the rest is still zero
+        ByteBuffer data = ByteBuffer.allocate(framed.length + 16);
+        data.put(framed, 0, framed.length / 2).clear();
+
+        assertThrows(IllegalArgumentException.class, () -> JournalRecord.read(data));
+    }
+
+    @Test
+    void rejectsACorruptedByte() {
+        byte[] framed = new JournalRecord(JournalRecord.Type.BOOK_DELETE, 7L).frame();
+        framed[framed.length - 1] ^= 1;
+
+        assertThrows(IllegalArgumentException.class, () -> JournalRecord.read(ByteBuffer.wrap(framed)));
+    }
+}
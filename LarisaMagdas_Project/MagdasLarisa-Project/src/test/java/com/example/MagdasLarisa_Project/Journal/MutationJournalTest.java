@@ -0,0 +1,169 @@
+package com.example.MagdasLarisa_Project.Journal;
+
+import com.example.MagdasLarisa_Project.Models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<MutationJournal> journals = new ArrayList<>();
+    private final List<SingleConnectionDataSource> dataSources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (MutationJournal journal : journals) {
+            journal.close();
+        }
+        for (SingleConnectionDataSource dataSource : dataSources) {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void replaysEveryRecordIntoAFreshDatabase() throws IOException {
+        MutationJournal journal = start(database());
+        journal.recordUser(user(1L, "first"));
+        journal.recordUser(user(2L, "second"));
+        journal.recordUserDeleted(1L);
+        journal.close();
+        journals.remove(journal);
+
+        JdbcTemplate restored = database();
+        MutationJournal restarted = start(restored);
+
+        assertTrue(restarted.isRestored());
+        assertEquals(List.of("second"), restored.queryForList("SELECT username FROM users ORDER BY id", String.class));
+    }
+
+    @Test
+    void stopsAtATornTailAndKeepsTheRecordsBeforeIt() throws IOException {
+        MutationJournal journal = start(database());
+        journal.recordUser(user(1L, "first"));
+        journal.recordUser(user(2L, "second"));
+        journal.recordUser(user(3L, "third"));
+        journal.close();
+        journals.remove(journal);
+        tearLastRecord(onlySegment());
+
+        JdbcTemplate restored = database();
+        start(restored);
+
+        assertEquals(List.of("first", "second"), restored.queryForList("SELECT username FROM users ORDER BY id", String.class));
+    }
+
+    @Test
+    void skipsEverythingAfterACorruptedRecord() throws IOException {
+        MutationJournal journal = start(database());
+        journal.recordUser(user(1L, "first"));
+        journal.recordUser(user(2L, "second"));
+        journal.recordUser(user(3L, "third"));
+        journal.close();
+        journals.remove(journal);
+        // Flip one byte inside the second record
+        Path segment = onlySegment();
+        List<int[]> records = records(segment);
+        flip(segment, records.get(1)[0] + records.get(1)[1] - 1);
+
+        JdbcTemplate restored = database();
+        start(restored);
+
+        assertEquals(List.of("first"), restored.queryForList("SELECT username FROM users ORDER BY id", String.class));
+    }
+
+    @Test
+    void startsEmptyWithoutAJournal() throws IOException {
+        MutationJournal journal = start(database());
+
+        assertFalse(journal.isRestored());
+    }
+
+    @Test
+    void refusesToRunWithShardedFavorites() {
+        assertThrows(IllegalArgumentException.class, () -> new MutationJournal(database(), true,
+                directory.toString(), 1, 5, 600_000, true));
+    }
+
+    private MutationJournal start(JdbcTemplate jdbcTemplate) throws IOException {
+        MutationJournal journal = new MutationJournal(jdbcTemplate, true, directory.toString(), 1, 5, 600_000, false);
+        journal.open();
+        journal.afterSingletonsInstantiated();
+        journals.add(journal);
+        return journal;
+    }
+
+    private JdbcTemplate database() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:journal_" + UUID.randomUUID().toString().replace("-", ""), "sa", "", true);
+        dataSources.add(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255), "
+                + "email VARCHAR(255), password VARCHAR(255), role VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE book (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(255), author VARCHAR(255), "
+                + "genre VARCHAR(255), published_year INT, user_id BIGINT REFERENCES users (id))");
+        jdbcTemplate.execute("CREATE TABLE favorite (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "user_id BIGINT REFERENCES users (id), book_id BIGINT REFERENCES book (id))");
+        return jdbcTemplate;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com", "secret", "ROLE_USER");
+        user.setId(id);
+        return user;
+    }
+
+    // The segment written by the first start; later starts open their own, still empty, segments
+    private Path onlySegment() {
+        return directory.resolve(String.format("journal-%010d.log", 1));
+    }
+
+    // Offset and framed length of every record in the segment
+    private static List<int[]> records(Path segment) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<int[]> records = new ArrayList<>();
+        int length;
+        while ((length = data.getInt(data.position())) != 0) {
+            records.add(new int[]{data.position(), 2 * Integer.BYTES + length});
+            data.position(data.position() + 2 * Integer.BYTES + length);
+        }
+        return records;
+    }
+
+    // Zeroes the second half of the last record, as if the crash came while it was written
+    private static void tearLastRecord(Path segment) throws IOException {
+        List<int[]> records = records(segment);
+        int[] last = records.get(records.size() - 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(last[1] / 2), last[0] + last[1] - last[1] / 2);
+        }
+    }
+
+    private static void flip(Path segment, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer single = ByteBuffer.allocate(1);
+            channel.read(single, offset);
+            single.put(0, (byte) (single.get(0) ^ 1)).rewind();
+            channel.write(single, offset);
+        }
+    }
+}
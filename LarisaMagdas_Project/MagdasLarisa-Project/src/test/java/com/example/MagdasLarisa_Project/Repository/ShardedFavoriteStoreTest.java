@@ -0,0 +1,198 @@
+package com.example.MagdasLarisa_Project.Repository;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import com.example.MagdasLarisa_Project.Models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShardedFavoriteStoreTest {
+
+    private ShardedFavoriteStore store;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(user(invocation.getArgument(0))));
+        when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                books.add(book(id));
+            }
+            return books;
+        });
+        // A fresh set of databases per test, the shards are named by generation and index
+        String urlTemplate = "jdbc:h2:mem:favorites_" + UUID.randomUUID().toString().replace("-", "") + "_g%d_s%d;DB_CLOSE_DELAY=-1";
+        store = new ShardedFavoriteStore(userRepository, bookRepository, 4, urlTemplate, "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void keepsEveryFavoriteOfAUserOnOneShard() {
+        for (long userId = 1; userId <= 40; userId++) {
+            for (long bookId = 1; bookId <= 5; bookId++) {
+                add(userId, bookId);
+            }
+        }
+
+        assertEquals(200, store.getShardSizes().stream().mapToLong(Long::longValue).sum());
+        for (long userId = 1; userId <= 40; userId++) {
+            assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), bookIdsOf(userId));
+        }
+        // Each user's rows are deleted from its own shard only
+        store.deleteByUserIdAndBookId(7L, 3L);
+        assertEquals(Set.of(1L, 2L, 4L, 5L), bookIdsOf(7L));
+        assertEquals(199, store.getShardSizes().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void deletesChunksOfAUserAndBooksAcrossShards() {
+        for (long userId = 1; userId <= 20; userId++) {
+            for (long bookId = 1; bookId <= 10; bookId++) {
+                add(userId, bookId);
+            }
+        }
+
+        int deleted = 0;
+        Long maxId;
+        while ((maxId = store.findChunkEndByUserId(5L, 3)) != null) {
+            int chunk = store.deleteByUserIdUpTo(5L, maxId);
+            assertEquals(Math.min(3, 10 - deleted), chunk);
+            deleted += chunk;
+        }
+        assertEquals(10, deleted);
+        assertNull(store.findChunkEndByUserId(5L, 3));
+
+        // The other 19 users each liked books 2 and 9, spread over every shard
+        assertEquals(38, store.deleteByBookIds(List.of(2L, 9L)));
+        assertEquals(0L, store.countByBookId().getOrDefault(2L, 0L));
+        assertEquals(19L, store.countByBookId().get(1L));
+        assertEquals(0, store.deleteByBookIds(List.of()));
+    }
+
+    @Test
+    void rebalanceKeepsConcurrentAddsAndDeletes() throws Exception {
+        int users = 16;
+        for (long userId = 1; userId <= users; userId++) {
+            for (long bookId = 1; bookId <= 50; bookId++) {
+                add(userId, bookId);
+            }
+        }
+
+        // Every worker owns one user, so it knows exactly which favorites that user must end with
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService workers = Executors.newFixedThreadPool(users);
+        List<Future<Set<Long>>> expected = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long user = userId;
+            expected.add(workers.submit(() -> {
+                Set<Long> books = new HashSet<>();
+                for (long bookId = 1; bookId <= 50; bookId++) {
+                    books.add(bookId);
+                }
+                Random random = new Random(user);
+                while (!done.get()) {
+                    long bookId = 1 + random.nextInt(80);
+                    if (books.remove(bookId)) {
+                        store.deleteByUserIdAndBookId(user, bookId);
+                    } else {
+                        add(user, bookId);
+                        books.add(bookId);
+                    }
+                }
+                return books;
+            }));
+        }
+
+        // Book 999 is favorited by new users while it is deleted over and over; a delete that
+        // races with the mirror of a save must not leave the row behind in the next shards
+        ExecutorService racers = Executors.newFixedThreadPool(2);
+        Future<Long> saved = racers.submit(() -> {
+            long count = 0;
+            while (!done.get()) {
+                add(10_000 + count, 999L);
+                count++;
+            }
+            return count;
+        });
+        Future<Long> deleted = racers.submit(() -> {
+            long count = 0;
+            while (!done.get()) {
+                count += store.deleteByBookIds(List.of(999L));
+            }
+            return count;
+        });
+
+        try {
+            for (int shardCount : new int[]{7, 3, 5}) {
+                store.rebalance(shardCount);
+                assertEquals(shardCount, store.getShardSizes().size());
+            }
+        } finally {
+            done.set(true);
+            workers.shutdown();
+            racers.shutdown();
+        }
+
+        long remaining = store.countByBookId().getOrDefault(999L, 0L);
+        assertEquals(saved.get(), deleted.get() + remaining);
+
+        long total = 0;
+        for (int i = 0; i < users; i++) {
+            Set<Long> books = expected.get(i).get();
+            assertEquals(books, bookIdsOf(i + 1L));
+            total += books.size();
+        }
+        // Nothing deleted during a copy came back on another shard
+        assertEquals(total, store.getShardSizes().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private void add(long userId, long bookId) {
+        store.save(new Favorite(user(userId), book(bookId)));
+    }
+
+    private Set<Long> bookIdsOf(long userId) {
+        Set<Long> bookIds = new HashSet<>();
+        for (Favorite favorite : store.findByUserId(userId)) {
+            bookIds.add(favorite.getBook().getId());
+        }
+        return bookIds;
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id, "user" + id + "@example.com", "secret", "ROLE_USER");
+        user.setId(id);
+        return user;
+    }
+
+    private static Book book(long id) {
+        Book book = new Book("Title " + id, "Author", "Genre", 2000, user(1000 + id));
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.MagdasLarisa_Project.Search;
+
+import com.example.MagdasLarisa_Project.Models.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSuggestionIndexTest {
+
+    @Test
+    void lowerBoundFindsThePrefixRange() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(
+                entry("clean code", 1), entry("clean architecture", 2), entry("code complete", 3), entry("dune", 4));
+
+        // Sorted: clean architecture, clean code, code complete, dune
+        assertEquals(0, snapshot.lowerBound("clean"));
+        assertEquals(2, snapshot.lowerBound("clean" + Character.MAX_VALUE));
+        assertEquals(2, snapshot.lowerBound("co"));
+        assertEquals(4, snapshot.lowerBound("zzz"));
+        assertEquals(0, snapshot.lowerBound(""));
+    }
+
+    @Test
+    void bestPicksTheHighestScoreInsideTheRange() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(
+                entry("a", 5), entry("b", 9), entry("c", 1), entry("d", 7), entry("e", 3));
+
+        assertEquals(1, snapshot.best(0, 5));
+        assertEquals(3, snapshot.best(2, 5));
+        assertEquals(2, snapshot.best(2, 3));
+        assertEquals(-1, snapshot.best(3, 3));
+    }
+
+    @Test
+    void bestBreaksTiesAlphabetically() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(entry("b", 4), entry("a", 4), entry("c", 4));
+
+        assertEquals(0, snapshot.best(0, 3));
+        assertEquals(1, snapshot.best(1, 3));
+    }
+
+    @Test
+    void topOnlyReturnsEntriesStartingWithThePrefixByPopularity() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(
+                entry("harry potter", 10), entry("hamlet", 30), entry("hobbit", 20), entry("gone girl", 99), entry("ivanhoe", 99));
+
+        assertEquals(List.of("hamlet", "hobbit", "harry potter"), texts(snapshot.top("h", 10)));
+        assertEquals(List.of("hamlet", "harry potter"), texts(snapshot.top("ha", 10)));
+        assertTrue(snapshot.top("x", 10).isEmpty());
+    }
+
+    @Test
+    void topStopsAtTheLimitAndKeepsTiesInAlphabeticalOrder() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(
+                entry("delta", 2), entry("charlie", 2), entry("bravo", 5), entry("alpha", 2));
+
+        assertEquals(List.of("bravo", "alpha"), texts(snapshot.top("", 2)));
+        assertEquals(List.of("bravo", "alpha", "charlie", "delta"), texts(snapshot.top("", 10)));
+        assertTrue(snapshot.top("", 0).isEmpty());
+    }
+
+    @Test
+    void titlesAndAuthorsWithTheSameTextAreSeparateEntries() {
+        BookSuggestionIndex.Snapshot snapshot = snapshot(
+                entry("dune", Suggestion.Type.TITLE, 3), entry("dune", Suggestion.Type.AUTHOR, 8));
+
+        List<Suggestion> top = snapshot.top("dune", 5);
+        assertEquals(2, top.size());
+        assertEquals(Suggestion.Type.AUTHOR, top.get(0).getType());
+        assertEquals(8, top.get(0).getPopularity());
+    }
+
+    @Test
+    void normalizeFoldsCaseAccentsAndSpaces() {
+        assertEquals("stefan cel mare", BookSuggestionIndex.normalize("  Ștefan   cel Mare "));
+        assertEquals("", BookSuggestionIndex.normalize(null));
+    }
+
+    private static BookSuggestionIndex.Snapshot snapshot(BookSuggestionIndex.Entry... entries) {
+        return new BookSuggestionIndex.Snapshot(new ArrayList<>(List.of(entries)));
+    }
+
+    private static BookSuggestionIndex.Entry entry(String key, long popularity) {
+        return entry(key, Suggestion.Type.TITLE, popularity);
+    }
+
+    private static BookSuggestionIndex.Entry entry(String key, Suggestion.Type type, long popularity) {
+        BookSuggestionIndex.Entry entry = new BookSuggestionIndex.Entry(key, key, type);
+        entry.popularity = popularity;
+        return entry;
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        List<String> texts = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            texts.add(suggestion.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.MagdasLarisa_Project.Search;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.TrendingBook;
+import com.example.MagdasLarisa_Project.Repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrendingBooksTest {
+
+    private static final long BUCKET_SECONDS = 60;
+
+    private final MutableClock clock = new MutableClock();
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private TrendingBooks trendingBooks;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                Book book = new Book("Title " + id, "Author", "Genre", 2000, null);
+                book.setId((Long) id);
+                books.add(book);
+            }
+            return books;
+        });
+        trendingBooks = new TrendingBooks(bookRepository, clock, BUCKET_SECONDS, 10, 16, 0.5);
+    }
+
+    @Test
+    void olderBucketsAreDecayedByTheHalfLife() {
+        add(2L, 4);
+        clock.advanceBuckets(1);
+        add(1L, 4);
+
+        // Two buckets with a half-life of one bucket: last bucket's additions count half
+        List<TrendingBook> trending = trendingBooks.trending(buckets(2), 10);
+
+        assertEquals(List.of(1L, 2L), ids(trending));
+        assertEquals(4.0, trending.get(0).getScore(), 1e-9);
+        assertEquals(2.0, trending.get(1).getScore(), 1e-9);
+        assertEquals(4, trending.get(1).getFavoritesAdded());
+    }
+
+    @Test
+    void bucketsOutsideTheWindowAreIgnored() {
+        add(2L, 10);
+        clock.advanceBuckets(2);
+        add(1L, 1);
+
+        assertEquals(List.of(1L), ids(trendingBooks.trending(buckets(2), 10)));
+        assertEquals(List.of(2L, 1L), ids(trendingBooks.trending(buckets(3), 10)));
+    }
+
+    @Test
+    void aWrappedRingReplacesTheOldBucket() {
+        add(2L, 5);
+        clock.advanceBuckets(10);
+        add(1L, 1);
+
+        assertEquals(List.of(1L), ids(trendingBooks.trending(buckets(10), 10)));
+    }
+
+    @Test
+    void limitKeepsTheBestBooks() {
+        add(1L, 1);
+        add(2L, 3);
+        add(3L, 2);
+
+        assertEquals(List.of(2L, 3L), ids(trendingBooks.trending(buckets(1), 2)));
+    }
+
+    @Test
+    void windowsMustBeWholeBucketsInsideTheRing() {
+        assertThrows(IllegalArgumentException.class, () -> trendingBooks.trending(Duration.ofSeconds(30), 10));
+        assertThrows(IllegalArgumentException.class, () -> trendingBooks.trending(Duration.ofSeconds(90), 10));
+        assertThrows(IllegalArgumentException.class, () -> trendingBooks.trending(buckets(11), 10));
+    }
+
+    @Test
+    void bucketCountsConcurrentIncrementsExactly() throws InterruptedException {
+        TrendingBooks.Bucket bucket = new TrendingBooks.Bucket(0, 64);
+        int threads = 8;
+        int perThread = 32 * 300;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    bucket.increment(1 + i % 32);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Map<Long, Long> counts = counts(bucket);
+        assertEquals(32, counts.size());
+        for (long bookId = 1; bookId <= 32; bookId++) {
+            assertEquals((long) threads * perThread / 32, counts.get(bookId));
+        }
+    }
+
+    @Test
+    void fullBucketRejectsNewBooksButKeepsCountingKnownOnes() {
+        TrendingBooks.Bucket bucket = new TrendingBooks.Bucket(0, 4);
+        for (long bookId = 1; bookId <= 4; bookId++) {
+            assertTrue(bucket.increment(bookId));
+        }
+
+        assertFalse(bucket.increment(5));
+        assertTrue(bucket.increment(3));
+        assertEquals(Map.of(1L, 1L, 2L, 1L, 3L, 2L, 4L, 1L), counts(bucket));
+    }
+
+    private void add(Long bookId, int times) {
+        for (int i = 0; i < times; i++) {
+            trendingBooks.recordFavoriteAdded(bookId);
+        }
+    }
+
+    private static Duration buckets(int count) {
+        return Duration.ofSeconds(BUCKET_SECONDS * count);
+    }
+
+    private static List<Long> ids(List<TrendingBook> trending) {
+        List<Long> ids = new ArrayList<>();
+        for (TrendingBook book : trending) {
+            ids.add(book.getBook().getId());
+        }
+        return ids;
+    }
+
+    private static Map<Long, Long> counts(TrendingBooks.Bucket bucket) {
+        Map<Long, Long> counts = new HashMap<>();
+        bucket.forEach(counts::put);
+        return counts;
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+        private void advanceBuckets(int count) {
+            millis += BUCKET_SECONDS * 1000 * count;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
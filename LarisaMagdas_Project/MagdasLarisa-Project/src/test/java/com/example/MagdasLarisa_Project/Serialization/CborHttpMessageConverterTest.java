@@ -0,0 +1,79 @@
+package com.example.MagdasLarisa_Project.Serialization;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.Favorite;
+import com.example.MagdasLarisa_Project.Models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CborHttpMessageConverterTest {
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final CborHttpMessageConverter converter = new CborHttpMessageConverter(cborMapper);
+
+    @Test
+    void booksDecodeToTheSameTreeAsTheirJson() throws IOException {
+        List<Book> books = List.of(book(1L, "Title1", author()), book(2L, "Title2", null));
+
+        assertSameTree(books, write(books));
+    }
+
+    @Test
+    void favoritesAndSingleUsersDecodeToTheSameTreeAsTheirJson() throws IOException {
+        User reader = new User("larisa1", "larisa1@yahoo.com", "123", "ROLE_USER");
+        reader.setId(1L);
+        Favorite favorite = new Favorite(reader, book(3L, "Title3", author()));
+        favorite.setId(7L);
+
+        assertSameTree(List.of(favorite), write(List.of(favorite)));
+        assertSameTree(reader, write(reader));
+    }
+
+    @Test
+    void mixedCollectionsFallBackToTheMapper() throws IOException {
+        List<Object> mixed = List.of(book(1L, "Title1", author()), "not a model");
+
+        assertSameTree(mixed, write(mixed));
+    }
+
+    @Test
+    void onlyWritesCbor() {
+        assertTrue(converter.canWrite(Book.class, MediaType.APPLICATION_CBOR));
+        assertFalse(converter.canWrite(Book.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(Book.class, MediaType.APPLICATION_CBOR));
+    }
+
+    private byte[] write(Object value) throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(value, MediaType.APPLICATION_CBOR, message);
+        return message.getBodyAsBytes();
+    }
+
+    // Numbers decode to the narrowest node type, so the trees are compared through their JSON text
+    private void assertSameTree(Object value, byte[] cbor) throws IOException {
+        assertEquals(jsonMapper.valueToTree(value).toString(), cborMapper.readTree(cbor).toString());
+    }
+
+    private static User author() {
+        User author = new User("larisa2", "larisa2@gmail.com", "123", "ROLE_AUTHOR");
+        author.setId(2L);
+        return author;
+    }
+
+    private static Book book(Long id, String title, User user) {
+        Book book = new Book(title, "Author", "Genre", 2008, user);
+        book.setId(id);
+        return book;
+    }
+}
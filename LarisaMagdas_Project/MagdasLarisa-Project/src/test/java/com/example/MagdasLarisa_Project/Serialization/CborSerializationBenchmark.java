@@ -0,0 +1,87 @@
+package com.example.MagdasLarisa_Project.Serialization;
+
+import com.example.MagdasLarisa_Project.Models.Book;
+import com.example.MagdasLarisa_Project.Models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Response size and serialization CPU time of a book listing: Jackson JSON (the default
+// response), Jackson's reflective CBOR mapper and the hand-written CBOR converter.
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class CborSerializationBenchmark {
+
+    private static final int[] BOOK_COUNTS = {100, 10_000, 100_000};
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final CborHttpMessageConverter converter = new CborHttpMessageConverter(cborMapper);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void bookListing() throws IOException {
+        System.out.printf("%-8s %-16s %12s %14s%n", "books", "format", "bytes", "cpu us/op");
+        for (int count : BOOK_COUNTS) {
+            List<Book> books = books(count);
+            int rounds = Math.max(3, MEASURED_ROUNDS * 1_000 / count);
+
+            long jsonBytes = measure(count, "json", rounds, () -> jsonMapper.writeValueAsBytes(books));
+            measure(count, "cbor (mapper)", rounds, () -> cborMapper.writeValueAsBytes(books));
+            long cborBytes = measure(count, "cbor (writers)", rounds, () -> {
+                MockHttpOutputMessage message = new MockHttpOutputMessage();
+                converter.write(books, MediaType.APPLICATION_CBOR, message);
+                return message.getBodyAsBytes();
+            });
+
+            assertTrue(cborBytes < jsonBytes, "CBOR should be smaller than JSON");
+        }
+    }
+
+    private long measure(int count, String format, int rounds, Serializer serializer) throws IOException {
+        int bytes = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            bytes = serializer.serialize().length;
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < rounds; i++) {
+            bytes = serializer.serialize().length;
+        }
+        long cpuMicros = (threads.getCurrentThreadCpuTime() - start) / rounds / 1_000;
+        System.out.printf("%-8d %-16s %12d %14d%n", count, format, bytes, cpuMicros);
+        return bytes;
+    }
+
+    private static List<Book> books(int count) {
+        List<User> authors = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            User author = new User("author" + i, "author" + i + "@example.com", "secret", "ROLE_AUTHOR");
+            author.setId(i);
+            authors.add(author);
+        }
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Book book = new Book("Title " + i, "Author " + (i % 500), "Genre " + (i % 20), 1950 + i % 75, authors.get(i % authors.size()));
+            book.setId((long) i);
+            books.add(book);
+        }
+        return books;
+    }
+
+    private interface Serializer {
+        byte[] serialize() throws IOException;
+    }
+}
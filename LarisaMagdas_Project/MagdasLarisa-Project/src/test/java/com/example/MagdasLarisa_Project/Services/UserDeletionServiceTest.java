@@ -0,0 +1,90 @@
+package com.example.MagdasLarisa_Project.Services;
+
+import com.example.MagdasLarisa_Project.Models.UserDeletionJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"bookstore.journal.enabled=false", "bookstore.user-deletion.chunk-size=7"})
+class UserDeletionServiceTest {
+
+    @Autowired
+    private UserDeletionService userDeletionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deletesTheUserWithItsBooksAndEveryFavoriteOverSeveralChunks() {
+        long author = insertUser();
+        long reader = insertUser();
+        long otherAuthor = insertUser();
+        insertBooks(author, 30);
+        insertBooks(otherAuthor, 20);
+        // The reader likes every book of the author, the author likes every book of the other author
+        favoriteBooksOf(reader, author);
+        favoriteBooksOf(author, otherAuthor);
+        favoriteBooksOf(reader, otherAuthor);
+
+        UserDeletionJob job = userDeletionService.deleteUser(author);
+
+        assertEquals(UserDeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(30, job.getBooksDeleted());
+        assertEquals(50, job.getFavoritesDeleted());
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE id = ?", author));
+        assertEquals(0, count("SELECT COUNT(*) FROM book WHERE user_id = ?", author));
+        assertEquals(0, count("SELECT COUNT(*) FROM favorite WHERE user_id = ?", author));
+        assertEquals(20, count("SELECT COUNT(*) FROM favorite WHERE user_id = ?", reader));
+        assertEquals(20, count("SELECT COUNT(*) FROM book WHERE user_id = ?", otherAuthor));
+    }
+
+    @Test
+    void chunkQueriesReadOnlyTheChunkOffTheCompositeIndexes() {
+        long author = insertUser();
+        long otherAuthor = insertUser();
+        insertBooks(author, 500);
+        insertBooks(otherAuthor, 500);
+        favoriteBooksOf(author, otherAuthor);
+        jdbcTemplate.execute("ANALYZE");
+
+        String favorites = plan("EXPLAIN ANALYZE SELECT MAX(id) FROM (SELECT f.id FROM favorite f USE INDEX (idx_favorite_user_id) "
+                + "WHERE f.user_id = " + author + " ORDER BY f.user_id, f.id FETCH FIRST 50 ROWS ONLY) chunk");
+        assertTrue(favorites.contains("IDX_FAVORITE_USER_ID") && favorites.contains("index sorted"), favorites);
+        assertTrue(favorites.contains("scanCount: 50 "), favorites);
+
+        String books = plan("EXPLAIN ANALYZE SELECT b.id FROM book b USE INDEX (idx_book_user_id) WHERE b.user_id = " + author
+                + " AND b.id > 0 ORDER BY b.user_id, b.id FETCH FIRST 50 ROWS ONLY");
+        assertTrue(books.contains("IDX_BOOK_USER_ID") && books.contains("index sorted"), books);
+        assertTrue(books.contains("scanCount: 50 "), books);
+    }
+
+    private long insertUser() {
+        String name = "user-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (username, email, password, role) VALUES (?, ?, 'secret', 'ROLE_AUTHOR')",
+                name, name + "@example.com");
+        return count("SELECT id FROM users WHERE username = ?", name);
+    }
+
+    private void insertBooks(long owner, int books) {
+        jdbcTemplate.update("INSERT INTO book (title, author, genre, published_year, user_id) "
+                + "SELECT 'Title ' || x, 'Author', 'Genre', 2000, ? FROM SYSTEM_RANGE(1, ?)", owner, books);
+    }
+
+    private void favoriteBooksOf(long user, long owner) {
+        jdbcTemplate.update("INSERT INTO favorite (user_id, book_id) SELECT ?, id FROM book WHERE user_id = ?", user, owner);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject(sql, String.class).replaceAll("\\s+", " ") + " ";
+    }
+}